@@ -0,0 +1,183 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TextGraphApp 各项操作的基准测试. 每个数据集先完整建图一次，
+ * 查询类操作轮流使用预先按固定种子抽取的输入，避免只测到同一个缓存命中.
+ * <p>
+ * 应用把图放在静态字段里，所以每个基准方法都在独立的 JVM 中运行（JMH 默认行为），并且只用单线程.
+ * 操作本身打印的提示信息在测量期间被丢弃.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class AppBenchmark {
+
+    private static final int INPUTS = 1024;             // 预先抽取的查询输入个数（2 的幂）
+    private static final int SENTENCE_WORDS = 8;
+    private static final int EDGE_BATCH = 1024;
+
+    @Param({"easy", "cursed", "zipf-1000", "zipf-10000", "zipf-100000", "zipf-1000000"})
+    public String dataset;
+
+    private Path corpus;
+    private Path dotFile;
+    private PrintStream stdout;
+
+    private String[] tokens;                            // 语料中的单词序列
+    private final String[][] pairs = new String[INPUTS][];
+    private final String[] sources = new String[INPUTS];
+    private final String[] sentences = new String[INPUTS];
+
+    private Graph edgeTarget;
+    private int edgeCursor;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        corpus = Datasets.resolve(dataset);
+        dotFile = Files.createTempFile("bench", ".dot");
+        TextGraphApp.loadTextAndBuildGraph(corpus.toString());
+
+        List<String> words = new ArrayList<>();
+        CorpusTokenizer tokenizer = new CorpusTokenizer();
+        tokenizer.tokenize(corpus, new CorpusTokenizer.TokenSink() {
+            @Override
+            public void word(int id) {
+                words.add(tokenizer.word(id));
+            }
+
+            @Override
+            public void lineBreak() {
+            }
+        });
+        tokens = words.toArray(new String[0]);
+
+        CsrGraph g = TextGraphApp.graph.freeze();
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < INPUTS; i++) {
+            int u = random.nextInt(g.nodeCount());
+            // 一半的词对相隔两步，保证桥接词查询与两点间最短路径都有结果可找
+            int v = random.nextBoolean() ? step(g, step(g, u, random), random) : random.nextInt(g.nodeCount());
+            pairs[i] = new String[]{g.word(u), g.word(v)};
+            sources[i] = g.word(random.nextInt(g.nodeCount()));
+            int start = random.nextInt(Math.max(1, tokens.length - SENTENCE_WORDS));
+            sentences[i] = String.join(" ",
+                    words.subList(start, Math.min(tokens.length, start + SENTENCE_WORDS)));
+        }
+    }
+
+    // 沿随机出边走一步，没有出边时停在原地
+    private static int step(CsrGraph g, int u, SplittableRandom random) {
+        int degree = g.outDegree(u);
+        return degree == 0 ? u : g.target(g.outStart(u) + random.nextInt(degree));
+    }
+
+    @Setup(Level.Iteration)
+    public void newEdgeTarget() {
+        edgeTarget = new Graph();
+        edgeCursor = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.setOut(stdout);
+        Files.deleteIfExists(dotFile);
+    }
+
+    private int next() {
+        return cursor++ & (INPUTS - 1);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int loadTextAndBuildGraph() {
+        TextGraphApp.loadTextAndBuildGraph(corpus.toString());
+        return TextGraphApp.graph.nodeCount();
+    }
+
+    /** 按语料顺序加边（相邻单词），每次调用加 EDGE_BATCH 条，图在一轮测量中持续增长. */
+    @Benchmark
+    @OperationsPerInvocation(EDGE_BATCH)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Graph addEdge() {
+        Graph graph = edgeTarget;
+        String[] t = tokens;
+        int i = edgeCursor;
+        for (int k = 0; k < EDGE_BATCH; k++) {
+            if (++i >= t.length) {
+                i = 1;
+            }
+            graph.addEdge(t[i - 1], t[i]);
+        }
+        edgeCursor = i;
+        return graph;
+    }
+
+    @Benchmark
+    public String queryBridgeWords() {
+        String[] pair = pairs[next()];
+        return TextGraphApp.queryBridgeWords(pair[0], pair[1]);
+    }
+
+    @Benchmark
+    public String generateNewText() {
+        return TextGraphApp.generateNewText(sentences[next()]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String findShortestPath() {
+        return TextGraphApp.findShortestPath(sources[next()]);
+    }
+
+    @Benchmark
+    public String calcShortestPath() {
+        String[] pair = pairs[next()];
+        return TextGraphApp.calcShortestPath(pair[0], pair[1]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public double calPageRankWithTF() {
+        // 绕过结果缓存，测到的是以图中词频初始化的完整计算
+        return TextGraphApp.computePageRank(TextGraphApp.graph.freeze()).score(sources[next()]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Path exportGraphToDot() {
+        TextGraphApp.exportGraphToDot(dotFile.toString());
+        return dotFile;
+    }
+}
@@ -0,0 +1,47 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 基准测试使用的数据集：仓库自带的两份文本，以及按节点数生成的 Zipf 语料.
+ * <ul>
+ *     <li>easy：Easy Test.txt</li>
+ *     <li>cursed：Cursed Be The Treasure.txt</li>
+ *     <li>zipf-N：N 个不同单词的合成语料，见 {@link ZipfCorpus}</li>
+ * </ul>
+ * 仓库文本先在当前目录查找，再到上一级目录（仓库根目录）查找，也可以用系统属性 textgraph.data 指定目录.
+ */
+final class Datasets {
+
+    private Datasets() {
+    }
+
+    static Path resolve(String name) throws IOException {
+        return switch (name) {
+            case "easy" -> fixed("Easy Test.txt");
+            case "cursed" -> fixed("Cursed Be The Treasure.txt");
+            default -> {
+                if (!name.startsWith("zipf-")) {
+                    throw new IllegalArgumentException("未知的数据集: " + name);
+                }
+                yield ZipfCorpus.cached(Integer.parseInt(name.substring("zipf-".length())));
+            }
+        };
+    }
+
+    private static Path fixed(String fileName) throws IOException {
+        String dir = System.getProperty("textgraph.data");
+        Path[] candidates = dir != null
+                ? new Path[]{Paths.get(dir, fileName)}
+                : new Path[]{Paths.get(fileName), Paths.get("..", fileName)};
+        for (Path candidate : candidates) {
+            if (Files.isRegularFile(candidate)) {
+                return candidate;
+            }
+        }
+        throw new IOException("找不到数据集文件: " + fileName);
+    }
+}
@@ -0,0 +1,153 @@
+package org.example;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * 按 Zipf 分布生成合成语料，用来把图从 10³ 个节点扩展到 10⁶ 个节点做基准测试.
+ * <p>
+ * 第 r 个单词（r 从 1 开始）出现的概率正比于 1 / r^s，单词本身是 r 的 26 进制字母编码
+ * （a, b, ..., z, aa, ab, ...），只含小写字母，分词后保持原样.
+ * 每行是一个 5 到 20 个单词的句子；主体生成完后，从未被抽到的单词各补一行，
+ * 使语料恰好包含 nodes 个不同单词. 相同参数总是生成相同的文件.
+ */
+final class ZipfCorpus {
+
+    static final double DEFAULT_EXPONENT = 1.07;    // 英文文本的典型指数
+    static final int DEFAULT_TOKENS_PER_NODE = 20;
+    static final long DEFAULT_SEED = 20240601L;
+
+    private static final int MIN_SENTENCE = 5;
+    private static final int MAX_SENTENCE = 20;
+
+    private final int nodes;
+    private final double[] cumulative;      // cumulative[r] = P(rank <= r)，r 从 0 开始
+
+    ZipfCorpus(int nodes, double exponent) {
+        if (nodes < 1) {
+            throw new IllegalArgumentException("节点数必须为正数");
+        }
+        this.nodes = nodes;
+        this.cumulative = new double[nodes];
+        double sum = 0;
+        for (int r = 0; r < nodes; r++) {
+            sum += 1.0 / Math.pow(r + 1, exponent);
+            cumulative[r] = sum;
+        }
+        for (int r = 0; r < nodes; r++) {
+            cumulative[r] /= sum;
+        }
+        cumulative[nodes - 1] = 1.0;
+    }
+
+    /** 按 Zipf 分布抽取一个排名（从 0 开始）. */
+    int sample(SplittableRandom random) {
+        int r = Arrays.binarySearch(cumulative, random.nextDouble());
+        return r >= 0 ? r : Math.min(-r - 1, nodes - 1);
+    }
+
+    /** 排名 rank（从 0 开始）对应的单词. */
+    static String word(int rank) {
+        StringBuilder word = new StringBuilder(6);
+        for (int r = rank + 1; r > 0; r = (r - 1) / 26) {
+            word.append((char) ('a' + (r - 1) % 26));
+        }
+        return word.reverse().toString();
+    }
+
+    /**
+     * 把约 tokens 个单词写入 out，返回实际写入的单词数.
+     */
+    long write(Writer out, long tokens, long seed) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        String[] words = new String[nodes];
+        boolean[] seen = new boolean[nodes];
+        long written = 0;
+        while (written < tokens) {
+            int length = MIN_SENTENCE + random.nextInt(MAX_SENTENCE - MIN_SENTENCE + 1);
+            for (int i = 0; i < length; i++) {
+                int r = sample(random);
+                seen[r] = true;
+                if (i > 0) {
+                    out.write(' ');
+                }
+                out.write(wordAt(words, r));
+            }
+            out.write(".\n");
+            written += length;
+        }
+        // 补上尾部没抽到的单词，让节点数与参数一致
+        for (int r = 0; r < nodes; r++) {
+            if (!seen[r]) {
+                out.write(wordAt(words, sample(random)));
+                out.write(' ');
+                out.write(wordAt(words, r));
+                out.write(' ');
+                out.write(wordAt(words, sample(random)));
+                out.write(".\n");
+                written += 3;
+            }
+        }
+        return written;
+    }
+
+    private static String wordAt(String[] words, int rank) {
+        String w = words[rank];
+        if (w == null) {
+            w = word(rank);
+            words[rank] = w;
+        }
+        return w;
+    }
+
+    /**
+     * 返回临时目录中 nodes 个节点的默认语料，不存在时先生成. 多个基准进程共用同一份文件.
+     */
+    static Path cached(int nodes) throws IOException {
+        Path dir = Paths.get(System.getProperty("java.io.tmpdir"));
+        Path file = dir.resolve("zipf-" + nodes + "-" + DEFAULT_SEED + ".txt");
+        if (!Files.exists(file)) {
+            Path partial = Files.createTempFile(dir, "zipf-" + nodes, ".part");
+            try (Writer out = Files.newBufferedWriter(partial, StandardCharsets.UTF_8)) {
+                new ZipfCorpus(nodes, DEFAULT_EXPONENT)
+                        .write(out, (long) nodes * DEFAULT_TOKENS_PER_NODE, DEFAULT_SEED);
+            }
+            try {
+                Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.deleteIfExists(partial);
+                if (!Files.exists(file)) {
+                    throw e;
+                }
+            }
+        }
+        return file;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("用法: ZipfCorpus <节点数> <输出文件> [每节点单词数] [指数] [种子]");
+            return;
+        }
+        int nodes = Integer.parseInt(args[0]);
+        Path output = Paths.get(args[1]);
+        int perNode = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_TOKENS_PER_NODE;
+        double exponent = args.length > 3 ? Double.parseDouble(args[3]) : DEFAULT_EXPONENT;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : DEFAULT_SEED;
+        long start = System.nanoTime();
+        long tokens;
+        try (BufferedWriter out = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            tokens = new ZipfCorpus(nodes, exponent).write(out, (long) nodes * perNode, seed);
+        }
+        System.out.printf("已生成 %s：%d 个不同单词，共 %d 个单词，耗时 %.1f s\n",
+                output, nodes, tokens, (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,105 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+/**
+ * 批量桥接词查询：从输入文件逐行读取 "word1 word2"，并行求解后按输入顺序写入输出文件.
+ * 每行结果与 {@link TextGraphApp#queryBridgeWords} 的返回值相同；不足两个单词的行输出格式错误提示
+ * （交互模式下单个单词会输出全部最短路径，不适合逐行的批处理格式）.
+ * 读取下一批的同时计算当前批，因此 I/O 与计算可以重叠.
+ */
+final class BatchBridgeQuery {
+
+    private static final int BATCH = 8192;
+    private static final long PROGRESS_EVERY = 1_000_000;
+
+    private BatchBridgeQuery() {
+    }
+
+    /**
+     * 执行批量查询，返回处理的行数；progress 为 null 时不输出进度.
+     */
+    static long run(CsrGraph g, Path input, Path output, int threads, PrintStream progress) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        long done = 0;
+        long nextReport = PROGRESS_EVERY;
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            List<String> batch = readBatch(reader);
+            while (!batch.isEmpty()) {
+                String[] results = new String[batch.size()];
+                List<String> current = batch;
+                Future<?> task = pool.submit(() -> IntStream.range(0, current.size()).parallel()
+                        .forEach(i -> results[i] = resolve(g, current.get(i))));
+
+                batch = readBatch(reader);
+                await(task);
+                for (String result : results) {
+                    writer.write(result);
+                    writer.newLine();
+                }
+
+                done += results.length;
+                if (progress != null && done >= nextReport) {
+                    progress.println(report(done, start));
+                    nextReport += PROGRESS_EVERY;
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        if (progress != null) {
+            progress.println(report(done, start));
+        }
+        return done;
+    }
+
+    /**
+     * 求解一行输入.
+     */
+    static String resolve(CsrGraph g, String line) {
+        String[] words = line.trim().split("\\s+");
+        if (words.length < 2) {
+            return "输入格式错误，请输入两个单词：" + line;
+        }
+        return TextGraphApp.bridgeWordsMessage(g, words[0].toLowerCase(), words[1].toLowerCase());
+    }
+
+    private static List<String> readBatch(BufferedReader reader) throws IOException {
+        List<String> batch = new ArrayList<>(BATCH);
+        String line;
+        while (batch.size() < BATCH && (line = reader.readLine()) != null) {
+            batch.add(line);
+        }
+        return batch;
+    }
+
+    private static void await(Future<?> task) throws IOException {
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("批量查询被中断", e);
+        } catch (ExecutionException e) {
+            throw new IOException("批量查询失败", e.getCause());
+        }
+    }
+
+    private static String report(long done, long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return String.format("已处理 %d 对，耗时 %.1f s，%.0f 对/秒", done, seconds, done / Math.max(seconds, 1e-9));
+    }
+}
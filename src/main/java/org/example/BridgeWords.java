@@ -0,0 +1,97 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * 桥接词查找：word1 -> bridge -> word2 中的 bridge 恰好是 word1 的后继与 word2 的前驱的交集.
+ * 冻结后的 {@link CsrGraph} 中出边按终点、入边按起点有序，因此直接对两段有序数组求交：
+ * 遍历较短的一段，在较长的一段上做倍增（galloping）查找，
+ * 代价为 O(min(out(w1), in(w2)) · log(max / min))，不访问任何候选词的邻接表.
+ */
+final class BridgeWords {
+
+    private BridgeWords() {
+    }
+
+    /**
+     * 按节点编号升序回调 u 到 v 的所有桥接词.
+     */
+    static void forEach(CsrGraph g, int u, int v, IntConsumer action) {
+        int a = g.outStart(u);
+        int aEnd = g.outEnd(u);
+        int b = g.inStart(v);
+        int bEnd = g.inEnd(v);
+        if (aEnd - a <= bEnd - b) {
+            for (; a < aEnd && b < bEnd; a++) {
+                int x = g.target(a);
+                b = gallopSources(g, b, bEnd, x);
+                if (b < bEnd && g.source(b) == x) {
+                    action.accept(x);
+                    b++;
+                }
+            }
+        } else {
+            for (; b < bEnd && a < aEnd; b++) {
+                int x = g.source(b);
+                a = gallopTargets(g, a, aEnd, x);
+                if (a < aEnd && g.target(a) == x) {
+                    action.accept(x);
+                    a++;
+                }
+            }
+        }
+    }
+
+    /**
+     * 返回 u 到 v 的所有桥接词编号（升序）.
+     */
+    static int[] of(CsrGraph g, int u, int v) {
+        int[] result = new int[Math.min(g.outDegree(u), g.inDegree(v))];
+        int[] count = new int[1];
+        forEach(g, u, v, x -> result[count[0]++] = x);
+        return Arrays.copyOf(result, count[0]);
+    }
+
+    // 在入边下标区间 [lo, hi) 中找到第一个起点 >= x 的位置
+    private static int gallopSources(CsrGraph g, int lo, int hi, int x) {
+        int step = 1;
+        int prev = lo;
+        while (lo < hi && g.source(lo) < x) {
+            prev = lo + 1;
+            lo += step;
+            step <<= 1;
+        }
+        int right = Math.min(lo, hi);
+        while (prev < right) {
+            int mid = (prev + right) >>> 1;
+            if (g.source(mid) < x) {
+                prev = mid + 1;
+            } else {
+                right = mid;
+            }
+        }
+        return prev;
+    }
+
+    // 在出边下标区间 [lo, hi) 中找到第一个终点 >= x 的位置
+    private static int gallopTargets(CsrGraph g, int lo, int hi, int x) {
+        int step = 1;
+        int prev = lo;
+        while (lo < hi && g.target(lo) < x) {
+            prev = lo + 1;
+            lo += step;
+            step <<= 1;
+        }
+        int right = Math.min(lo, hi);
+        while (prev < right) {
+            int mid = (prev + right) >>> 1;
+            if (g.target(mid) < x) {
+                prev = mid + 1;
+            } else {
+                right = mid;
+            }
+        }
+        return prev;
+    }
+}
@@ -0,0 +1,537 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 多文件语料的流水线加载：读取、分词、建图三个阶段各自使用独立的线程，
+ * 阶段之间以有界队列相连，磁盘读取与分词、建图同时进行，队列写满时上游自动等待.
+ * <p>
+ * 每个文件是一篇独立的文档，单独分词，文档之间（与行之间一样）不连边.
+ * 合并结果的边权重与逐个文件顺序加载完全相同（节点编号的分配顺序可能不同）.
+ */
+final class CorpusPipeline {
+
+    // 单个文件的大小上限：整篇文档在队列中以一个字节数组传递
+    static final long MAX_DOCUMENT = 1L << 30;
+    // 建图线程累积到这么多条不同的边后作为一个批次加入图
+    private static final int BATCH_EDGES = 1 << 16;
+
+    final int readers;
+    final int tokenizers;
+    final int builders;
+    final int queueCapacity;
+
+    /**
+     * @param queueCapacity 每个队列最多容纳的文档数（两个队列相同），决定流水线占用内存的上限
+     */
+    CorpusPipeline(int readers, int tokenizers, int builders, int queueCapacity) {
+        if (readers < 1 || tokenizers < 1 || builders < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("各阶段线程数与队列容量都必须为正数");
+        }
+        this.readers = readers;
+        this.tokenizers = tokenizers;
+        this.builders = builders;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /** 按本机核数确定的默认配置：读取 2 线程，其余核用于分词，建图线程为分词的四分之一. */
+    static CorpusPipeline defaults() {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        int tokenizers = Math.max(1, cpus - 1);
+        return new CorpusPipeline(2, tokenizers, Math.max(1, tokenizers / 4), 2 * tokenizers);
+    }
+
+    /** 路径是目录或含有通配符（* ? [ {）时需要按多文件加载. */
+    static boolean isMultiFile(String spec) {
+        return globStart(spec) >= 0 || Files.isDirectory(Paths.get(spec));
+    }
+
+    /**
+     * 把目录（递归）或通配符（如 corpus/*.txt、data/**.txt）展开为按路径排序的文件列表；
+     * 普通文件原样返回. 没有匹配的文件时抛出 NoSuchFileException.
+     */
+    static List<Path> expand(String spec) throws IOException {
+        int glob = globStart(spec);
+        List<Path> files;
+        if (glob < 0) {
+            Path path = Paths.get(spec);
+            if (!Files.isDirectory(path)) {
+                return List.of(path);
+            }
+            try (Stream<Path> walk = Files.walk(path)) {
+                files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+        } else {
+            // 从通配符之前的最后一级目录开始遍历，用完整的模式匹配遍历到的路径
+            int sep = spec.lastIndexOf('/', glob);
+            Path base = Paths.get(sep < 0 ? "" : spec.substring(0, sep + 1));
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + spec);
+            if (!Files.isDirectory(base)) {
+                throw new NoSuchFileException(spec);
+            }
+            try (Stream<Path> walk = Files.walk(base)) {
+                files = walk.filter(p -> matcher.matches(p) && Files.isRegularFile(p)).sorted()
+                        .collect(Collectors.toList());
+            }
+        }
+        if (files.isEmpty()) {
+            throw new NoSuchFileException(spec);
+        }
+        return files;
+    }
+
+    private static int globStart(String spec) {
+        for (int i = 0; i < spec.length(); i++) {
+            char c = spec.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 加载全部文件，把边与词频加入 graph，结束时发布新快照.
+     * 任一阶段出错时停止整条流水线并抛出第一个错误.
+     */
+    Report load(List<Path> files, Graph graph) throws IOException {
+        long start = System.nanoTime();
+        Run run = new Run(files, graph);
+        for (int i = 0; i < readers; i++) {
+            run.thread("ingest-read-" + (i + 1), run::read);
+        }
+        for (int i = 0; i < tokenizers; i++) {
+            run.thread("ingest-tokenize-" + (i + 1), run::tokenize);
+        }
+        for (int i = 0; i < builders; i++) {
+            run.thread("ingest-build-" + (i + 1), run::build);
+        }
+        List<Thread> threads = run.threads;
+        threads.forEach(Thread::start);
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            threads.forEach(Thread::interrupt);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("加载被中断");
+        }
+        Throwable error = run.failure.get();
+        if (error instanceof UncheckedIOException) {
+            throw ((UncheckedIOException) error).getCause();
+        } else if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        } else if (error instanceof Error) {
+            throw (Error) error;
+        }
+        graph.freeze();
+        long nanos = System.nanoTime() - start;
+        return new Report(new GraphLoader.Stats(run.readStage.bytes.get(), run.tokenCount.get(), nanos),
+                files.size(), nanos, run.readStage, run.tokenizeStage, run.buildStage, run.documents, run.batches);
+    }
+
+    /**
+     * 一次加载的统计：总吞吐，以及每个阶段的繁忙程度与每个队列的占用情况.
+     * 繁忙比例接近 100% 的阶段是瓶颈；其上游队列常满（生产方等待长），下游队列常空.
+     */
+    static final class Report {
+        final GraphLoader.Stats total;
+        final int files;
+        final long nanos;
+        final StageStats read;
+        final StageStats tokenize;
+        final StageStats build;
+        final QueueStats documents;
+        final QueueStats batches;
+
+        Report(GraphLoader.Stats total, int files, long nanos, StageStats read, StageStats tokenize,
+               StageStats build, QueueStats documents, QueueStats batches) {
+            this.total = total;
+            this.files = files;
+            this.nanos = nanos;
+            this.read = read;
+            this.tokenize = tokenize;
+            this.build = build;
+            this.documents = documents;
+            this.batches = batches;
+        }
+
+        @Override
+        public String toString() {
+            return total + "，共 " + files + " 个文件\n"
+                    + read.describe(nanos) + "\n" + tokenize.describe(nanos) + "\n" + build.describe(nanos) + "\n"
+                    + documents + "\n" + batches;
+        }
+    }
+
+    /** 一个阶段的统计：线程数、处理的文档数与字节数、各线程实际工作（不含排队等待）的总时间. */
+    static final class StageStats {
+        final String name;
+        final int threads;
+        final AtomicLong items = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        final AtomicLong busyNanos = new AtomicLong();
+
+        StageStats(String name, int threads) {
+            this.name = name;
+            this.threads = threads;
+        }
+
+        /** 单个线程的处理速度（MB/s）. */
+        double megabytesPerSecond() {
+            long busy = busyNanos.get();
+            return busy == 0 ? 0.0 : bytes.get() / 1e6 / (busy / 1e9);
+        }
+
+        /** 繁忙比例：工作时间占 线程数 × 总耗时 的比例. */
+        double utilization(long wallNanos) {
+            return wallNanos == 0 ? 0.0 : (double) busyNanos.get() / ((double) threads * wallNanos);
+        }
+
+        String describe(long wallNanos) {
+            return String.format("  %s：%d 线程，%d 篇文档，繁忙 %.0f%%，单线程 %.2f MB/s",
+                    name, threads, items.get(), utilization(wallNanos) * 100, megabytesPerSecond());
+        }
+    }
+
+    /** 队列的统计：每次放入后的长度（平均、最大），以及生产方因队列满、消费方因队列空而等待的总时间. */
+    static final class QueueStats {
+        final String name;
+        final int capacity;
+        final AtomicLong puts = new AtomicLong();
+        final AtomicLong occupancySum = new AtomicLong();
+        final AtomicInteger maxOccupancy = new AtomicInteger();
+        final AtomicLong fullNanos = new AtomicLong();
+        final AtomicLong emptyNanos = new AtomicLong();
+
+        QueueStats(String name, int capacity) {
+            this.name = name;
+            this.capacity = capacity;
+        }
+
+        double averageOccupancy() {
+            long n = puts.get();
+            return n == 0 ? 0.0 : (double) occupancySum.get() / n;
+        }
+
+        void sample(int size) {
+            puts.incrementAndGet();
+            occupancySum.addAndGet(size);
+            maxOccupancy.accumulateAndGet(size, Math::max);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("  %s队列（容量 %d）：平均 %.1f，最多 %d，生产方等待 %.1f ms，消费方等待 %.1f ms",
+                    name, capacity, averageOccupancy(), maxOccupancy.get(), fullNanos.get() / 1e6,
+                    emptyNanos.get() / 1e6);
+        }
+    }
+
+    // 一篇读入内存的文档
+    private static final class Document {
+        static final Document END = new Document(null, new byte[0]);
+
+        final Path path;
+        final byte[] bytes;
+
+        Document(Path path, byte[] bytes) {
+            this.path = path;
+            this.bytes = bytes;
+        }
+    }
+
+    // 一篇文档的分词结果：文档内的单词（批次编号 -> 单词及其在分词线程词表中的编号）、词频，
+    // 以及以批次编号为键的边表
+    private static final class Batch {
+        static final Batch END = new Batch(0, new int[0], new String[0], new int[0], new EdgeCounter(), 0, 0);
+
+        final int source;       // 产生该批次的分词线程
+        final int[] ids;
+        final String[] words;
+        final int[] counts;
+        final EdgeCounter edges;
+        final long tokens;
+        final long bytes;
+
+        Batch(int source, int[] ids, String[] words, int[] counts, EdgeCounter edges, long tokens, long bytes) {
+            this.source = source;
+            this.ids = ids;
+            this.words = words;
+            this.counts = counts;
+            this.edges = edges;
+            this.tokens = tokens;
+            this.bytes = bytes;
+        }
+    }
+
+    // 带统计的有界队列，上游结束时为每个消费线程放入一个结束标记（不计入统计）
+    private static final class Channel<T> {
+        private final ArrayBlockingQueue<T> queue;
+        private final QueueStats stats;
+        private final T end;
+
+        Channel(QueueStats stats, T end) {
+            this.queue = new ArrayBlockingQueue<>(stats.capacity);
+            this.stats = stats;
+            this.end = end;
+        }
+
+        void close(int consumers) throws InterruptedException {
+            for (int i = 0; i < consumers; i++) {
+                queue.put(end);
+            }
+        }
+
+        void put(T item) throws InterruptedException {
+            if (!queue.offer(item)) {
+                long waitStart = System.nanoTime();
+                queue.put(item);
+                stats.fullNanos.addAndGet(System.nanoTime() - waitStart);
+            }
+            stats.sample(queue.size());
+        }
+
+        T take() throws InterruptedException {
+            T item = queue.poll();
+            if (item == null) {
+                long waitStart = System.nanoTime();
+                item = queue.take();
+                stats.emptyNanos.addAndGet(System.nanoTime() - waitStart);
+            }
+            return item;
+        }
+    }
+
+    private interface Work {
+        void run() throws IOException, InterruptedException;
+    }
+
+    // 一次加载的共享状态
+    private final class Run {
+        final List<Path> files;
+        final Graph graph;
+        final StageStats readStage = new StageStats("读取", readers);
+        final StageStats tokenizeStage = new StageStats("分词", tokenizers);
+        final StageStats buildStage = new StageStats("建图", builders);
+        final QueueStats documents = new QueueStats("读取→分词 ", queueCapacity);
+        final QueueStats batches = new QueueStats("分词→建图 ", queueCapacity);
+        final Channel<Document> documentQueue = new Channel<>(documents, Document.END);
+        final Channel<Batch> batchQueue = new Channel<>(batches, Batch.END);
+        final AtomicInteger nextFile = new AtomicInteger();
+        final AtomicInteger activeReaders = new AtomicInteger(readers);
+        final AtomicInteger activeTokenizers = new AtomicInteger(tokenizers);
+        final AtomicInteger nextTokenizer = new AtomicInteger();
+        final AtomicLong tokenCount = new AtomicLong();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final List<Thread> threads = new ArrayList<>();
+
+        Run(List<Path> files, Graph graph) {
+            this.files = files;
+            this.graph = graph;
+        }
+
+        void thread(String name, Work work) {
+            Thread thread = new Thread(() -> {
+                try {
+                    work.run();
+                } catch (InterruptedException e) {
+                    // 其他阶段出错，流水线已被停止
+                } catch (IOException e) {
+                    fail(new UncheckedIOException(e));
+                } catch (Throwable e) {
+                    fail(e);
+                }
+            }, name);
+            thread.setDaemon(true);
+            threads.add(thread);
+        }
+
+        // 记录第一个错误并中断所有线程，阻塞在队列上的线程随之退出
+        private void fail(Throwable error) {
+            if (failure.compareAndSet(null, error)) {
+                threads.forEach(Thread::interrupt);
+            }
+        }
+
+        void read() throws IOException, InterruptedException {
+            for (int i; (i = nextFile.getAndIncrement()) < files.size(); ) {
+                Path file = files.get(i);
+                long workStart = System.nanoTime();
+                long size = Files.size(file);
+                if (size > MAX_DOCUMENT) {
+                    throw new IOException("文件过大（超过 " + (MAX_DOCUMENT >> 20) + " MB），请单独加载：" + file);
+                }
+                byte[] bytes = Files.readAllBytes(file);
+                record(readStage, bytes.length, workStart);
+                documentQueue.put(new Document(file, bytes));
+            }
+            if (activeReaders.decrementAndGet() == 0) {
+                documentQueue.close(tokenizers);
+            }
+        }
+
+        void tokenize() throws InterruptedException {
+            // 分词器在同一线程的各篇文档之间复用，每个不同的单词在本线程只创建一次 String
+            CorpusTokenizer tokenizer = new CorpusTokenizer();
+            DocumentSink sink = new DocumentSink(tokenizer, nextTokenizer.getAndIncrement());
+            for (Document doc; (doc = documentQueue.take()) != Document.END; ) {
+                long workStart = System.nanoTime();
+                sink.start(doc.bytes.length);
+                tokenizer.feed(ByteBuffer.wrap(doc.bytes), sink);
+                tokenizer.finish(sink);
+                Batch batch = sink.finish(doc.bytes.length);
+                record(tokenizeStage, doc.bytes.length, workStart);
+                batchQueue.put(batch);
+            }
+            if (activeTokenizers.decrementAndGet() == 0) {
+                batchQueue.close(builders);
+            }
+        }
+
+        void build() throws InterruptedException {
+            // 每个分词线程的词表编号 -> 图节点编号（-1 表示尚未加入图），同一个单词只查询一次词典
+            int[][] graphIds = new int[tokenizers][0];
+            EdgeCounter pending = new EdgeCounter(BATCH_EDGES);
+            for (Batch batch; (batch = batchQueue.take()) != Batch.END; ) {
+                long workStart = System.nanoTime();
+                Batch current = batch;     // 循环变量不是 effectively final
+                // 只有参与连边的单词才成为图中的节点，与顺序加载一致
+                batch.edges.forEach((from, to, weight) ->
+                        pending.add(graphId(graphIds, current, from), graphId(graphIds, current, to), weight));
+                if (pending.size() >= BATCH_EDGES) {
+                    graph.addEdges(pending);
+                    pending.clear();
+                }
+                String[] words = batch.words;
+                int[] ids = new int[words.length];
+                for (int local = 0; local < ids.length; local++) {
+                    int[] known = graphIds[batch.source];
+                    ids[local] = batch.ids[local] < known.length ? known[batch.ids[local]] : -1;
+                }
+                graph.addTermCounts(ids, words, batch.counts, words.length, batch.tokens);
+                tokenCount.addAndGet(batch.tokens);
+                record(buildStage, batch.bytes, workStart);
+            }
+            graph.addEdges(pending);
+        }
+
+        private int graphId(int[][] graphIds, Batch batch, int local) {
+            int id = batch.ids[local];
+            int[] ids = graphIds[batch.source];
+            if (id >= ids.length) {
+                int oldLength = ids.length;
+                ids = Arrays.copyOf(ids, Math.max(Math.max(oldLength * 2, 1024), id + 1));
+                Arrays.fill(ids, oldLength, ids.length, -1);
+                graphIds[batch.source] = ids;
+            }
+            if (ids[id] < 0) {
+                ids[id] = graph.intern(batch.words[local]);
+            }
+            return ids[id];
+        }
+
+        private void record(StageStats stage, long bytes, long workStart) {
+            stage.busyNanos.addAndGet(System.nanoTime() - workStart);
+            stage.bytes.addAndGet(bytes);
+            stage.items.incrementAndGet();
+        }
+    }
+
+    /**
+     * 把分词器编号转换成文档内从 0 开始的批次编号并在文档内连边.
+     * 批次只携带 String 与原始类型数组，不引用分词器本身，可以安全地交给建图线程；
+     * 分词器编号只用于让建图线程缓存单词对应的节点编号.
+     */
+    private static final class DocumentSink implements CorpusTokenizer.TokenSink {
+        private final CorpusTokenizer tokenizer;
+        private final int source;
+        private int[] batchIds = new int[1024];     // 分词器编号 -> 批次编号
+        private int[] stamps = new int[1024];       // 分词器编号 -> 最近出现的文档序号，用于惰性清空 batchIds
+        private int document;
+        private int[] ids;
+        private String[] words;
+        private int[] counts;
+        private int size;
+        private EdgeCounter edges;
+        private long tokens;
+        private int prev;
+
+        DocumentSink(CorpusTokenizer tokenizer, int source) {
+            this.tokenizer = tokenizer;
+            this.source = source;
+        }
+
+        // 按文档大小预估不同的边数（英文平均每个单词约 6 字节），避免边表反复扩容
+        void start(int bytes) {
+            document++;
+            ids = new int[64];
+            words = new String[64];
+            counts = new int[64];
+            size = 0;
+            edges = new EdgeCounter(Math.max(16, bytes / 8));
+            tokens = 0;
+            prev = -1;      // 文档开头：不与上一篇文档的最后一个单词连边
+        }
+
+        Batch finish(long bytes) {
+            return new Batch(source, Arrays.copyOf(ids, size), Arrays.copyOf(words, size), Arrays.copyOf(counts, size),
+                    edges, tokens, bytes);
+        }
+
+        @Override
+        public void word(int id) {
+            tokens++;
+            int local = batchId(id);
+            counts[local]++;
+            if (prev >= 0) {
+                edges.add(prev, local, 1);
+            }
+            prev = local;
+        }
+
+        @Override
+        public void lineBreak() {
+            prev = -1;
+        }
+
+        private int batchId(int id) {
+            if (id >= stamps.length) {
+                int length = Math.max(stamps.length * 2, id + 1);
+                stamps = Arrays.copyOf(stamps, length);
+                batchIds = Arrays.copyOf(batchIds, length);
+            }
+            if (stamps[id] != document) {
+                stamps[id] = document;
+                if (size == words.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                    words = Arrays.copyOf(words, size * 2);
+                    counts = Arrays.copyOf(counts, size * 2);
+                }
+                ids[size] = id;
+                words[size] = tokenizer.word(id);
+                batchIds[id] = size++;
+            }
+            return batchIds[id];
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 基于内存映射的语料分词器，直接在 UTF-8 字节上运行手写状态机.
+ * 切分规则与原先的 {@code toLowerCase().replaceAll("[^a-z\\s]", "").split("\\s+")} 完全一致：
+ * <ul>
+ *     <li>A-Z 转成小写，a-z 保留；</li>
+ *     <li>空白字符（空格、\t、\u000B、\f）结束当前单词；</li>
+ *     <li>换行（\n、\r、U+0085、U+2028、U+2029）结束当前单词并结束当前行，行与行之间不连边；</li>
+ *     <li>其余字符直接丢弃，不会打断单词（如 "don't" 得到 "dont"）；</li>
+ *     <li>小写后落入 a-z 的两个非 ASCII 字符（U+212A 开尔文符号、U+0130）分别视为 k 和 i.</li>
+ * </ul>
+ * 每个不同的单词只在第一次出现时创建一个 String，之后以整数编号回调给 {@link TokenSink}.
+ */
+final class CorpusTokenizer {
+
+    /** 分词结果回调. */
+    interface TokenSink {
+        /** 读到一个单词，参数为该单词在本分词器词表中的编号. */
+        void word(int id);
+
+        /** 一行结束. */
+        void lineBreak();
+    }
+
+    // 单个映射窗口的最大字节数，超过该大小的文件分多次映射
+    private static final long WINDOW = 1L << 30;
+
+    // UTF-8 多字节序列的识别状态
+    private static final int NORMAL = 0;
+    private static final int AFTER_C2 = 1;      // 可能是 U+0085
+    private static final int AFTER_C4 = 2;      // 可能是 U+0130
+    private static final int AFTER_E2 = 3;
+    private static final int AFTER_E2_80 = 4;   // 可能是 U+2028 / U+2029
+    private static final int AFTER_E2_84 = 5;   // 可能是 U+212A
+
+    private final WordTable table = new WordTable();
+    private byte[] token = new byte[32];
+    private int length;
+    private int state = NORMAL;
+
+    /**
+     * 映射并切分整个文件，返回读取的字节数.
+     */
+    long tokenize(Path file, TokenSink sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long pos = 0; pos < size; pos += WINDOW) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(WINDOW, size - pos));
+                feed(buffer, sink);
+            }
+            finish(sink);
+            return size;
+        }
+    }
+
+    /**
+     * 把缓冲区中剩余的字节送入状态机，单词可以跨越多次调用.
+     */
+    void feed(ByteBuffer buffer, TokenSink sink) {
+        for (int i = buffer.position(), end = buffer.limit(); i < end; i++) {
+            accept(buffer.get(i) & 0xFF, sink);
+        }
+        buffer.position(buffer.limit());
+    }
+
+    /**
+     * 输入结束：输出最后一个未结束的单词.
+     */
+    void finish(TokenSink sink) {
+        state = NORMAL;
+        flush(sink);
+    }
+
+    /** 词表中的单词数. */
+    int wordCount() {
+        return table.size();
+    }
+
+    /** 编号对应的单词. */
+    String word(int id) {
+        return table.word(id);
+    }
+
+    private void accept(int b, TokenSink sink) {
+        switch (state) {
+            case AFTER_C2:
+                state = NORMAL;
+                if (b == 0x85) {
+                    lineBreak(sink);
+                    return;
+                }
+                break;
+            case AFTER_C4:
+                state = NORMAL;
+                if (b == 0xB0) {
+                    append('i');
+                    return;
+                }
+                break;
+            case AFTER_E2:
+                state = b == 0x80 ? AFTER_E2_80 : b == 0x84 ? AFTER_E2_84 : NORMAL;
+                if (state != NORMAL) {
+                    return;
+                }
+                break;
+            case AFTER_E2_80:
+                state = NORMAL;
+                if (b == 0xA8 || b == 0xA9) {
+                    lineBreak(sink);
+                    return;
+                }
+                break;
+            case AFTER_E2_84:
+                state = NORMAL;
+                if (b == 0xAA) {
+                    append('k');
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+
+        if (b >= 'a' && b <= 'z') {
+            append(b);
+        } else if (b >= 'A' && b <= 'Z') {
+            append(b + ('a' - 'A'));
+        } else if (b == ' ' || b == '\t' || b == 0x0B || b == '\f') {
+            flush(sink);
+        } else if (b == '\n' || b == '\r') {
+            lineBreak(sink);
+        } else if (b == 0xC2) {
+            state = AFTER_C2;
+        } else if (b == 0xC4) {
+            state = AFTER_C4;
+        } else if (b == 0xE2) {
+            state = AFTER_E2;
+        }
+        // 其余字节（标点、数字、其他非 ASCII 字符）直接丢弃
+    }
+
+    private void append(int b) {
+        if (length == token.length) {
+            token = Arrays.copyOf(token, length * 2);
+        }
+        token[length++] = (byte) b;
+    }
+
+    private void flush(TokenSink sink) {
+        if (length > 0) {
+            sink.word(table.intern(token, length));
+            length = 0;
+        }
+    }
+
+    private void lineBreak(TokenSink sink) {
+        flush(sink);
+        sink.lineBreak();
+    }
+
+    /**
+     * 以字节序列为键的开放寻址词表，查找时不创建 String.
+     */
+    private static final class WordTable {
+        private byte[] pool = new byte[1024];   // 所有单词字节首尾相接
+        private int poolSize;
+        private int[] starts = new int[64];     // 编号 -> 在 pool 中的起点
+        private int[] hashes = new int[64];     // 编号 -> 哈希值
+        private String[] words = new String[64];
+        private int size;
+        private int[] slots = new int[128];     // 槽位 -> 编号 + 1，0 表示空
+
+        int intern(byte[] bytes, int len) {
+            int hash = hash(bytes, len);
+            int mask = slots.length - 1;
+            for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+                int id = slots[slot] - 1;
+                if (id < 0) {
+                    id = add(bytes, len, hash);
+                    slots[slot] = id + 1;
+                    if (size * 2 > slots.length) {
+                        rehash();
+                    }
+                    return id;
+                }
+                if (hashes[id] == hash && equals(id, bytes, len)) {
+                    return id;
+                }
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        String word(int id) {
+            return words[id];
+        }
+
+        private int add(byte[] bytes, int len, int hash) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                hashes = Arrays.copyOf(hashes, size * 2);
+                words = Arrays.copyOf(words, size * 2);
+            }
+            if (poolSize + len > pool.length) {
+                pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + len));
+            }
+            System.arraycopy(bytes, 0, pool, poolSize, len);
+            starts[size] = poolSize;
+            hashes[size] = hash;
+            words[size] = new String(bytes, 0, len, StandardCharsets.US_ASCII);
+            poolSize += len;
+            return size++;
+        }
+
+        private boolean equals(int id, byte[] bytes, int len) {
+            int start = starts[id];
+            int end = id + 1 < size ? starts[id + 1] : poolSize;
+            return Arrays.equals(pool, start, end, bytes, 0, len);
+        }
+
+        private void rehash() {
+            slots = new int[slots.length * 2];
+            int mask = slots.length - 1;
+            for (int id = 0; id < size; id++) {
+                int slot = hashes[id] & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = id + 1;
+            }
+        }
+
+        private static int hash(byte[] bytes, int len) {
+            int h = 0;
+            for (int i = 0; i < len; i++) {
+                h = 31 * h + bytes[i];
+            }
+            // 短单词的多项式哈希集中在相邻的小范围内，线性探测下会连成长簇，先打散再取低位
+            h *= 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package org.example;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 冻结后的只读图，采用压缩稀疏行（CSR）格式存储.
+ * 节点用 0..nodeCount-1 的整数编号表示，节点 u 的出边位于下标区间
+ * [outStart(u), outEnd(u))，每行内按终点编号升序排列；同时保存转置后的入边索引，
+ * 节点 v 的入边位于 [inStart(v), inEnd(v))，按起点编号升序排列。
+ * 另外带有冻结时各节点在语料中的出现次数（词频）与语料的单词总数，供 PageRank 初始化使用。
+ * 实例一经创建便不再修改，可以在算法中放心地长期持有.
+ * <p>
+ * 与边数成正比的四个数组（出边终点、出边权重、入边起点、入边权重）可以放在堆外的直接内存中，
+ * 此时 Java 堆只保存按节点的数组，访问方法不变，算法无需区分两种存储.
+ */
+public final class CsrGraph {
+
+    private final String[] words;          // 编号 -> 单词
+    private final Map<String, Integer> ids; // 单词 -> 编号
+    private final int[] offsets;           // 长度 nodeCount + 1
+    private final int[] inOffsets;         // 入边索引，长度 nodeCount + 1
+    // 按边的数组：堆内存储时为以数组为后备的缓冲区，同时保留数组本身以便直接访问；堆外存储时数组为 null
+    private final IntBuffer targetBuffer;  // 长度 edgeCount
+    private final IntBuffer weightBuffer;  // 与 targets 一一对应
+    private final IntBuffer sourceBuffer;  // 入边的起点编号
+    private final IntBuffer inWeightBuffer; // 与 sources 一一对应
+    private final int[] targets;
+    private final int[] weights;
+    private final int[] sources;
+    private final int[] inWeights;
+    private final int[] termCounts;        // 编号 -> 词频，长度 nodeCount
+    private final long tokenCount;         // 语料的单词总数（包括没有成为节点的单词）
+    private final long version;            // 冻结时图的版本号
+
+    // targets 与 weights 是否在堆外决定了入边数组的存储位置
+    private CsrGraph(String[] words, Map<String, Integer> ids, int[] offsets, IntBuffer targets, IntBuffer weights,
+                     int[] termCounts, long tokenCount, long version) {
+        this.version = version;
+        this.termCounts = termCounts;
+        this.tokenCount = tokenCount;
+        this.words = words;
+        this.ids = ids;
+        this.offsets = offsets;
+        this.targetBuffer = targets;
+        this.weightBuffer = weights;
+
+        // 按终点计数排序得到转置矩阵；由于按起点顺序扫描，每行内的起点自然有序
+        int n = words.length;
+        int m = targets.capacity();
+        inOffsets = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            inOffsets[targets.get(e) + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            inOffsets[v + 1] += inOffsets[v];
+        }
+        boolean offHeap = targets.isDirect();
+        sourceBuffer = OffHeap.ints(m, offHeap);
+        inWeightBuffer = OffHeap.ints(m, offHeap);
+        int[] cursor = Arrays.copyOf(inOffsets, n);
+        for (int u = 0; u < n; u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int slot = cursor[targets.get(e)]++;
+                sourceBuffer.put(slot, u);
+                inWeightBuffer.put(slot, weights.get(e));
+            }
+        }
+        this.targets = offHeap ? null : targets.array();
+        this.weights = offHeap ? null : weights.array();
+        this.sources = offHeap ? null : sourceBuffer.array();
+        this.inWeights = offHeap ? null : inWeightBuffer.array();
+    }
+
+    /**
+     * 由单词表和边计数表（可以分成多段）构建 CSR 结构. termCounts 的长度须为节点数，之后归 CsrGraph 所有.
+     */
+    static CsrGraph build(List<String> wordList, EdgeCounter[] parts, int[] termCounts, long tokenCount,
+                          long version) {
+        return build(wordList, parts, termCounts, tokenCount, version, false);
+    }
+
+    /**
+     * 同上，offHeap 为 true 时按边的数组放在堆外. 构建过程中额外使用的堆内存只与节点数成正比.
+     */
+    static CsrGraph build(List<String> wordList, EdgeCounter[] parts, int[] termCounts, long tokenCount,
+                          long version, boolean offHeap) {
+        int n = wordList.size();
+        String[] words = wordList.toArray(new String[0]);
+        Map<String, Integer> ids = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            ids.put(words[i], i);
+        }
+
+        // 1. 统计每个起点的出度，前缀和得到行偏移
+        int[] offsets = new int[n + 1];
+        int edgeCount = 0;
+        for (EdgeCounter edges : parts) {
+            edges.forEach((from, to, w) -> offsets[from + 1]++);
+            edgeCount += edges.size();
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        // 2. 按行放入 (终点, 权重)
+        IntBuffer targets = OffHeap.ints(edgeCount, offHeap);
+        IntBuffer weights = OffHeap.ints(edgeCount, offHeap);
+        int[] cursor = Arrays.copyOf(offsets, n);
+        int maxDegree = 0;
+        for (EdgeCounter edges : parts) {
+            edges.forEach((from, to, w) -> {
+                int slot = cursor[from]++;
+                targets.put(slot, to);
+                weights.put(slot, w);
+            });
+        }
+
+        // 3. 行内按终点排序：每行打包成 (终点, 权重) 的 long 在临时数组中排序，临时数组只需最大出度那么长
+        for (int u = 0; u < n; u++) {
+            maxDegree = Math.max(maxDegree, offsets[u + 1] - offsets[u]);
+        }
+        long[] row = new long[maxDegree];
+        for (int u = 0; u < n; u++) {
+            int start = offsets[u];
+            int degree = offsets[u + 1] - start;
+            if (degree < 2) {
+                continue;
+            }
+            // 终点与权重都非负，高 32 位放终点即按终点排序
+            for (int i = 0; i < degree; i++) {
+                row[i] = ((long) targets.get(start + i) << 32) | weights.get(start + i);
+            }
+            Arrays.sort(row, 0, degree);
+            for (int i = 0; i < degree; i++) {
+                targets.put(start + i, (int) (row[i] >>> 32));
+                weights.put(start + i, (int) row[i]);
+            }
+        }
+        return new CsrGraph(words, ids, offsets, targets, weights, termCounts, tokenCount, version);
+    }
+
+    /**
+     * 直接由 CSR 数组构建（用于加载快照，数组不会被复制）。
+     * 会检查偏移单调、终点合法且每行内严格递增、词频非负，不满足时抛出 IllegalArgumentException.
+     */
+    static CsrGraph of(String[] words, int[] offsets, int[] targets, int[] weights, int[] termCounts,
+                       long tokenCount, long version) {
+        return of(words, offsets, targets, weights, termCounts, tokenCount, version, false);
+    }
+
+    /**
+     * 同上，offHeap 为 true 时把按边的数组复制到堆外.
+     */
+    static CsrGraph of(String[] words, int[] offsets, int[] targets, int[] weights, int[] termCounts,
+                       long tokenCount, long version, boolean offHeap) {
+        int n = words.length;
+        if (offsets.length != n + 1 || offsets[0] != 0 || offsets[n] != targets.length
+                || weights.length != targets.length || termCounts.length != n) {
+            throw new IllegalArgumentException("CSR 数组长度不一致");
+        }
+        Map<String, Integer> ids = new HashMap<>(n * 2);
+        for (int u = 0; u < n; u++) {
+            if (ids.put(words[u], u) != null) {
+                throw new IllegalArgumentException("重复的单词：" + words[u]);
+            }
+            if (offsets[u] > offsets[u + 1]) {
+                throw new IllegalArgumentException("行偏移不是单调递增的");
+            }
+            if (termCounts[u] < 0) {
+                throw new IllegalArgumentException("词频为负数：" + words[u]);
+            }
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                if (targets[e] < 0 || targets[e] >= n || weights[e] <= 0
+                        || (e > offsets[u] && targets[e] <= targets[e - 1])) {
+                    throw new IllegalArgumentException("非法的边：" + words[u] + " -> #" + targets[e]);
+                }
+            }
+        }
+        IntBuffer targetBuffer = IntBuffer.wrap(targets);
+        IntBuffer weightBuffer = IntBuffer.wrap(weights);
+        if (offHeap) {
+            targetBuffer = OffHeap.ints(targets.length).put(targets);
+            weightBuffer = OffHeap.ints(weights.length).put(weights);
+        }
+        return new CsrGraph(words, ids, offsets, targetBuffer, weightBuffer, termCounts, tokenCount, version);
+    }
+
+    /** 冻结时 {@link Graph} 的版本号. */
+    public long version() {
+        return version;
+    }
+
+    /** 节点总数. */
+    public int nodeCount() {
+        return words.length;
+    }
+
+    /** 边总数（不同的有序词对数量）. */
+    public int edgeCount() {
+        return targetBuffer.capacity();
+    }
+
+    /** 按边的数组占用的堆外字节数，堆内存储时为 0. */
+    public long offHeapBytes() {
+        return targets == null ? 4L * Integer.BYTES * edgeCount() : 0;
+    }
+
+    /**
+     * 查找单词对应的节点编号（单词需已是小写），不存在时返回 -1.
+     */
+    public int id(String word) {
+        Integer id = ids.get(word);
+        return id == null ? -1 : id;
+    }
+
+    /** 节点编号对应的单词. */
+    public String word(int id) {
+        return words[id];
+    }
+
+    /** 节点 u 的第一条出边下标. */
+    public int outStart(int u) {
+        return offsets[u];
+    }
+
+    /** 节点 u 的最后一条出边下标 + 1. */
+    public int outEnd(int u) {
+        return offsets[u + 1];
+    }
+
+    /** 节点 u 的出度. */
+    public int outDegree(int u) {
+        return offsets[u + 1] - offsets[u];
+    }
+
+    /** 第 e 条边的终点编号. */
+    public int target(int e) {
+        return targets != null ? targets[e] : targetBuffer.get(e);
+    }
+
+    /** 第 e 条边的权重. */
+    public int weight(int e) {
+        return weights != null ? weights[e] : weightBuffer.get(e);
+    }
+
+    /** 节点 v 的第一条入边下标. */
+    public int inStart(int v) {
+        return inOffsets[v];
+    }
+
+    /** 节点 v 的最后一条入边下标 + 1. */
+    public int inEnd(int v) {
+        return inOffsets[v + 1];
+    }
+
+    /** 节点 v 的入度. */
+    public int inDegree(int v) {
+        return inOffsets[v + 1] - inOffsets[v];
+    }
+
+    /** 第 i 条入边的起点编号. */
+    public int source(int i) {
+        return sources != null ? sources[i] : sourceBuffer.get(i);
+    }
+
+    /** 第 i 条入边的权重. */
+    public int inWeight(int i) {
+        return inWeights != null ? inWeights[i] : inWeightBuffer.get(i);
+    }
+
+    /** 节点 u 在语料中的出现次数. */
+    public int termCount(int u) {
+        return termCounts[u];
+    }
+
+    /** 按节点编号的词频（副本）. */
+    public int[] termCounts() {
+        return termCounts.clone();
+    }
+
+    /** 语料的单词总数，包括没有成为节点的单词（如独占一行的单词）. */
+    public long tokenCount() {
+        return tokenCount;
+    }
+
+    /**
+     * 获取边 u -> v 的权重，不存在时返回 0。行内有序，使用二分查找.
+     */
+    public int edgeWeight(int u, int v) {
+        if (targets != null) {
+            int e = Arrays.binarySearch(targets, offsets[u], offsets[u + 1], v);
+            return e >= 0 ? weights[e] : 0;
+        }
+        int lo = offsets[u];
+        int hi = offsets[u + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int t = targetBuffer.get(mid);
+            if (t < v) {
+                lo = mid + 1;
+            } else if (t > v) {
+                hi = mid - 1;
+            } else {
+                return weightBuffer.get(mid);
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,357 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Locale;
+
+/**
+ * 把冻结的图（或按条件筛选出的子图）以 DOT 格式流式写出.
+ * 每条边只写入几个固定片段和单词本身，权重直接转成字符，不经过 String.format.
+ */
+final class DotExporter {
+
+    /** 选取前 k 个节点（或边）时依据的指标. */
+    enum Rank {
+        DEGREE,     // 出度 + 入度
+        PAGERANK,
+        WEIGHT      // 按边权重选前 k 条边，节点为这些边的端点
+    }
+
+    /**
+     * 筛选条件，由 "top=50 by=pagerank min=2 ego=the radius=2" 形式的文本解析而来. 各条件同时生效：
+     * 先取 ego 周围 radius 步以内的节点，再在其中按 by 选前 top 个，最后丢弃权重小于 min 的边.
+     */
+    static final class Filter {
+        static final Filter ALL = new Filter(0, Rank.DEGREE, 1, null, 1);
+
+        final int top;          // 0 表示不限制
+        final Rank rank;
+        final int minWeight;
+        final String ego;       // null 表示不限制
+        final int radius;
+
+        Filter(int top, Rank rank, int minWeight, String ego, int radius) {
+            if (top < 0 || minWeight < 1 || radius < 0) {
+                throw new IllegalArgumentException("筛选参数必须为非负数（min 至少为 1）");
+            }
+            this.top = top;
+            this.rank = rank;
+            this.minWeight = minWeight;
+            this.ego = ego == null ? null : ego.toLowerCase();
+            this.radius = radius;
+        }
+
+        static Filter parse(String spec) {
+            int top = 0;
+            Rank rank = Rank.DEGREE;
+            int minWeight = 1;
+            String ego = null;
+            int radius = 1;
+            for (String part : spec.trim().split("\\s+")) {
+                if (part.isEmpty()) {
+                    continue;
+                }
+                int eq = part.indexOf('=');
+                if (eq <= 0) {
+                    throw new IllegalArgumentException("无法识别的筛选条件：" + part);
+                }
+                String value = part.substring(eq + 1);
+                try {
+                    switch (part.substring(0, eq)) {
+                        case "top" -> top = Integer.parseInt(value);
+                        case "by" -> rank = Rank.valueOf(value.toUpperCase(Locale.ROOT));
+                        case "min" -> minWeight = Integer.parseInt(value);
+                        case "ego" -> ego = value;
+                        case "radius" -> radius = Integer.parseInt(value);
+                        default -> throw new IllegalStateException();
+                    }
+                } catch (IllegalStateException e) {
+                    throw new IllegalArgumentException("无法识别的筛选条件：" + part);
+                } catch (IllegalArgumentException e) {   // 数字格式错误或未知的 by 取值
+                    throw new IllegalArgumentException("筛选条件取值不合法：" + part);
+                }
+            }
+            return new Filter(top, rank, minWeight, ego, radius);
+        }
+
+        boolean isAll() {
+            return top == 0 && minWeight == 1 && ego == null;
+        }
+
+        @Override
+        public String toString() {
+            if (isAll()) {
+                return "整张图";
+            }
+            StringBuilder text = new StringBuilder();
+            if (ego != null) {
+                text.append(ego).append(" 周围 ").append(radius).append(" 步以内；");
+            }
+            if (top > 0) {
+                text.append(rank == Rank.WEIGHT ? "权重最大的 " + top + " 条边；"
+                        : (rank == Rank.DEGREE ? "度数" : "PageRank") + "最高的 " + top + " 个节点；");
+            }
+            if (minWeight > 1) {
+                text.append("边权重至少 ").append(minWeight).append("；");
+            }
+            return text.substring(0, text.length() - 1);
+        }
+    }
+
+    /**
+     * 筛选出的子图：保留的节点与边. 节点与边都为 null 时表示整张图.
+     */
+    static final class Selection {
+        final CsrGraph graph;
+        private final boolean[] nodes;      // null 表示保留全部节点
+        private final boolean[] edges;      // null 表示按 minWeight 保留边
+        private final int minWeight;
+        private int nodeCount = -1;
+        private int edgeCount = -1;
+
+        Selection(CsrGraph graph, boolean[] nodes, boolean[] edges, int minWeight) {
+            this.graph = graph;
+            this.nodes = nodes;
+            this.edges = edges;
+            this.minWeight = minWeight;
+        }
+
+        boolean containsNode(int u) {
+            return nodes == null || nodes[u];
+        }
+
+        boolean containsEdge(int e) {
+            return edges != null ? edges[e]
+                    : graph.weight(e) >= minWeight && containsNode(graph.target(e));
+        }
+
+        int nodeCount() {
+            if (nodeCount < 0) {
+                int count = 0;
+                for (int u = 0; u < graph.nodeCount(); u++) {
+                    if (containsNode(u)) {
+                        count++;
+                    }
+                }
+                nodeCount = count;
+            }
+            return nodeCount;
+        }
+
+        int edgeCount() {
+            if (edgeCount < 0) {
+                int[] count = new int[1];
+                forEachEdge((from, to, weight) -> count[0]++);
+                edgeCount = count[0];
+            }
+            return edgeCount;
+        }
+
+        /** 按起点编号顺序遍历保留的边. */
+        void forEachEdge(EdgeCounter.EdgeConsumer consumer) {
+            CsrGraph g = graph;
+            for (int u = 0; u < g.nodeCount(); u++) {
+                if (!containsNode(u)) {
+                    continue;
+                }
+                for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+                    if (containsEdge(e)) {
+                        consumer.accept(u, g.target(e), g.weight(e));
+                    }
+                }
+            }
+        }
+
+        /**
+         * 以 DOT 格式写出子图，返回写出的边数. 没有保留任何边的节点单独声明，以便仍然出现在图中.
+         */
+        long write(Writer out) throws IOException {
+            CsrGraph g = graph;
+            char[] digits = new char[11];
+            long written = 0;
+            out.write("digraph G {\n");
+            for (int u = 0; u < g.nodeCount(); u++) {
+                if (!containsNode(u)) {
+                    continue;
+                }
+                String from = g.word(u);
+                boolean any = false;
+                for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+                    if (!containsEdge(e)) {
+                        continue;
+                    }
+                    out.write("    \"");
+                    writeEscaped(out, from);
+                    out.write("\" -> \"");
+                    writeEscaped(out, g.word(g.target(e)));
+                    out.write("\" [label=\"");
+                    int start = format(g.weight(e), digits);
+                    out.write(digits, start, digits.length - start);
+                    out.write("\"];\n");
+                    written++;
+                    any = true;
+                }
+                if (!any && !hasIncoming(u)) {
+                    out.write("    \"");
+                    writeEscaped(out, from);
+                    out.write("\";\n");
+                }
+            }
+            out.write("}\n");
+            edgeCount = (int) written;
+            return written;
+        }
+
+        private boolean hasIncoming(int v) {
+            CsrGraph g = graph;
+            for (int i = g.inStart(v); i < g.inEnd(v); i++) {
+                int u = g.source(i);
+                if (containsNode(u) && g.inWeight(i) >= minWeight
+                        && (edges == null || containsEdge(edgeIndex(u, v)))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int edgeIndex(int u, int v) {
+            CsrGraph g = graph;
+            for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+                if (g.target(e) == v) {
+                    return e;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private DotExporter() {
+    }
+
+    /**
+     * 按条件筛选子图. 只有按 PageRank 选取时才需要 pageRank（按节点编号的得分），其余情况可为 null.
+     */
+    static Selection select(CsrGraph g, Filter filter, double[] pageRank) {
+        int n = g.nodeCount();
+        if (filter.isAll()) {
+            return new Selection(g, null, null, 1);
+        }
+        boolean[] candidates = null;
+        if (filter.ego != null) {
+            int center = g.id(filter.ego);
+            if (center < 0) {
+                throw new IllegalArgumentException("No \"" + filter.ego + "\" in the graph!");
+            }
+            candidates = egoNetwork(g, center, filter.radius, filter.minWeight);
+        }
+        if (filter.top == 0) {
+            return new Selection(g, candidates, null, filter.minWeight);
+        }
+
+        boolean[] inside = candidates;
+        int minWeight = filter.minWeight;
+        switch (filter.rank) {
+            case WEIGHT -> {
+                // 按权重选边：只看两端都在候选集合中且权重达标的边
+                int[] sources = new int[g.edgeCount()];
+                for (int u = 0; u < n; u++) {
+                    for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+                        sources[e] = u;
+                    }
+                }
+                int[] best = TopK.select(g.edgeCount(),
+                        e -> g.weight(e) >= minWeight
+                                && (inside == null || (inside[sources[e]] && inside[g.target(e)])),
+                        g::weight, filter.top);
+                boolean[] nodes = new boolean[n];
+                boolean[] edges = new boolean[g.edgeCount()];
+                for (int e : best) {
+                    edges[e] = true;
+                    nodes[sources[e]] = true;
+                    nodes[g.target(e)] = true;
+                }
+                return new Selection(g, nodes, edges, minWeight);
+            }
+            case PAGERANK -> {
+                if (pageRank == null || pageRank.length != n) {
+                    throw new IllegalArgumentException("按 PageRank 筛选需要先计算 PageRank");
+                }
+                return new Selection(g, mark(n, TopK.select(n, inside == null ? null : u -> inside[u],
+                        u -> pageRank[u], filter.top)), null, minWeight);
+            }
+            default -> {
+                return new Selection(g, mark(n, TopK.select(n, inside == null ? null : u -> inside[u],
+                        u -> g.outDegree(u) + g.inDegree(u), filter.top)), null, minWeight);
+            }
+        }
+    }
+
+    // 沿出边与入边（忽略方向）广度优先搜索 radius 步以内的节点
+    private static boolean[] egoNetwork(CsrGraph g, int center, int radius, int minWeight) {
+        boolean[] seen = new boolean[g.nodeCount()];
+        ArrayDeque<int[]> queue = new ArrayDeque<>();
+        seen[center] = true;
+        queue.add(new int[]{center, 0});
+        while (!queue.isEmpty()) {
+            int[] item = queue.poll();
+            int u = item[0];
+            if (item[1] == radius) {
+                continue;
+            }
+            for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+                int v = g.target(e);
+                if (!seen[v] && g.weight(e) >= minWeight) {
+                    seen[v] = true;
+                    queue.add(new int[]{v, item[1] + 1});
+                }
+            }
+            for (int i = g.inStart(u); i < g.inEnd(u); i++) {
+                int v = g.source(i);
+                if (!seen[v] && g.inWeight(i) >= minWeight) {
+                    seen[v] = true;
+                    queue.add(new int[]{v, item[1] + 1});
+                }
+            }
+        }
+        return seen;
+    }
+
+    private static boolean[] mark(int n, int[] ids) {
+        boolean[] marked = new boolean[n];
+        for (int id : ids) {
+            marked[id] = true;
+        }
+        return marked;
+    }
+
+    // 把非负整数的十进制字符写在 buffer 末尾，返回起始下标
+    private static int format(int value, char[] buffer) {
+        int i = buffer.length;
+        do {
+            buffer[--i] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        return i;
+    }
+
+    // 写出单词，转义 DOT 字符串中的双引号与反斜杠（建图得到的单词只含字母，通常直接写出）
+    private static void writeEscaped(Writer out, String word) throws IOException {
+        int i = 0;
+        int len = word.length();
+        while (i < len && word.charAt(i) != '"' && word.charAt(i) != '\\') {
+            i++;
+        }
+        if (i == len) {
+            out.write(word);
+            return;
+        }
+        for (int j = 0; j < len; j++) {
+            char c = word.charAt(j);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+            }
+            out.write(c);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在后台调用 Graphviz 把 DOT 文件渲染成 PNG：立即返回，超时或取消时强制结束 dot 进程（连同其子进程）.
+ * 节点较多时改用 sfdp 布局，dot 的层次布局在上万个节点上可能长时间无法结束.
+ */
+final class DotRenderer {
+
+    // 超过该节点数时使用 sfdp 布局
+    static final int SFDP_THRESHOLD = 2000;
+
+    /**
+     * 一次渲染任务. {@link #done} 正常完成时给出图像路径；失败、超时（TimeoutException）
+     * 或取消（CancellationException）时异常完成.
+     */
+    static final class Job {
+        final Path output;
+        final CompletableFuture<Path> done;
+        private final Process process;
+
+        private Job(Path output, CompletableFuture<Path> done, Process process) {
+            this.output = output;
+            this.done = done;
+            this.process = process;
+        }
+
+        /** 取消渲染并结束 dot 进程（返回前即已结束）；任务已结束时返回 false. */
+        boolean cancel() {
+            boolean cancelled = done.cancel(true);
+            kill();
+            return cancelled;
+        }
+
+        boolean isRunning() {
+            return !done.isDone();
+        }
+
+        private void kill() {
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        }
+    }
+
+    private DotRenderer() {
+    }
+
+    /**
+     * 启动渲染. 找不到 dot 命令时直接抛出 IOException.
+     *
+     * @param nodes   图的节点数，用于选择布局引擎
+     * @param timeout 超时（秒），不大于 0 表示不限时
+     */
+    static Job start(Path dotFile, Path output, int nodes, long timeout) throws IOException {
+        String layout = nodes > SFDP_THRESHOLD ? "sfdp" : "dot";
+        Process process = new ProcessBuilder("dot", "-K" + layout, "-Tpng", dotFile.toString(), "-o", output.toString())
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        CompletableFuture<Path> done = new CompletableFuture<>();
+        Job job = new Job(output, done, process);
+        process.onExit().whenComplete((p, error) -> {
+            if (error != null) {
+                done.completeExceptionally(error);
+            } else if (p.exitValue() != 0) {
+                done.completeExceptionally(new IOException("dot 退出码 " + p.exitValue()));
+            } else {
+                done.complete(output);
+            }
+        });
+        if (timeout > 0) {
+            done.orTimeout(timeout, TimeUnit.SECONDS);
+        }
+        done.whenComplete((path, error) -> {
+            if (error != null) {
+                job.kill();     // 超时或取消：进程可能仍在运行
+            }
+        });
+        return job;
+    }
+}
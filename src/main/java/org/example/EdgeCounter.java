@@ -0,0 +1,212 @@
+package org.example;
+
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * 以 (srcId, dstId) 为键的开放寻址计数表，用于建图阶段累加边权重.
+ * 键被打包为 long（高 32 位为起点，低 32 位为终点），值为 int 权重，
+ * 不产生任何装箱对象.
+ * <p>
+ * 堆外模式下键和值存放在直接内存中（见 {@link OffHeap}），表再大也只占用固定大小的堆，
+ * 单张表最多 {@link #MAX_CAPACITY} 个槽位，即最多容纳一半数量的不同边，再插入新边时抛出
+ * IllegalStateException.
+ */
+final class EdgeCounter {
+
+    private static final long EMPTY = -1L; // 节点编号非负，因此 -1 不会是合法键
+    private static final float LOAD_FACTOR = 0.5f;
+    // 堆外缓冲区单个不超过 2 GB，long 键最多 2^28 个
+    static final int MAX_CAPACITY = 1 << 28;
+
+    private final boolean offHeap;
+    // 堆内模式使用数组，堆外模式使用直接缓冲区，另一组为 null
+    private long[] keys;
+    private int[] values;
+    private LongBuffer keyBuffer;
+    private IntBuffer valueBuffer;
+    private int capacity;
+    private int size;
+    private int mask;
+
+    EdgeCounter() {
+        this(16);
+    }
+
+    EdgeCounter(int expectedSize) {
+        this(expectedSize, false);
+    }
+
+    EdgeCounter(int expectedSize, boolean offHeap) {
+        this.offHeap = offHeap;
+        int capacity = tableSizeFor((int) Math.min(MAX_CAPACITY, (long) (expectedSize / LOAD_FACTOR) + 1));
+        allocate(capacity);
+    }
+
+    static long key(int from, int to) {
+        return ((long) from << 32) | (to & 0xFFFFFFFFL);
+    }
+
+    static int source(long key) {
+        return (int) (key >>> 32);
+    }
+
+    static int target(long key) {
+        return (int) key;
+    }
+
+    /**
+     * 把边 from -> to 的权重增加 delta，返回累加后的权重.
+     */
+    int add(int from, int to, int delta) {
+        long k = key(from, to);
+        int slot = slotOf(k);
+        if (keyAt(slot) == EMPTY) {
+            if (capacity == MAX_CAPACITY && size + 1 > (int) (capacity * LOAD_FACTOR)) {
+                throw new IllegalStateException("边表已满：单张表最多 " + MAX_CAPACITY + " 个槽位");
+            }
+            put(slot, k, delta);
+            if (++size > (int) (capacity * LOAD_FACTOR)) {
+                rehash(capacity << 1);
+            }
+            return delta;
+        }
+        if (values != null) {
+            return values[slot] += delta;
+        }
+        int total = valueBuffer.get(slot) + delta;
+        valueBuffer.put(slot, total);
+        return total;
+    }
+
+    /**
+     * 获取边 from -> to 的权重，不存在时返回 0.
+     */
+    int get(int from, int to) {
+        long k = key(from, to);
+        int slot = slotOf(k);
+        return keyAt(slot) == EMPTY ? 0 : valueAt(slot);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** 堆外表占用的直接内存字节数，堆内模式为 0. */
+    long offHeapBytes() {
+        return offHeap ? (long) capacity * (Long.BYTES + Integer.BYTES) : 0;
+    }
+
+    void clear() {
+        if (keys != null) {
+            Arrays.fill(keys, EMPTY);
+        } else {
+            for (int i = 0; i < capacity; i++) {
+                keyBuffer.put(i, EMPTY);
+            }
+        }
+        size = 0;
+    }
+
+    /**
+     * 遍历所有边，回调参数依次为起点、终点、权重.
+     */
+    void forEach(EdgeConsumer consumer) {
+        for (int i = 0; i < capacity; i++) {
+            long k = keyAt(i);
+            if (k != EMPTY) {
+                consumer.accept(source(k), target(k), valueAt(i));
+            }
+        }
+    }
+
+    /** 边遍历回调. */
+    interface EdgeConsumer {
+        void accept(int from, int to, int weight);
+    }
+
+    // 线性探测，返回键所在槽位或第一个空槽位
+    private int slotOf(long k) {
+        int slot = mix(k) & mask;
+        if (keys != null) {
+            while (keys[slot] != EMPTY && keys[slot] != k) {
+                slot = (slot + 1) & mask;
+            }
+        } else {
+            long found;
+            while ((found = keyBuffer.get(slot)) != EMPTY && found != k) {
+                slot = (slot + 1) & mask;
+            }
+        }
+        return slot;
+    }
+
+    private long keyAt(int slot) {
+        return keys != null ? keys[slot] : keyBuffer.get(slot);
+    }
+
+    private int valueAt(int slot) {
+        return values != null ? values[slot] : valueBuffer.get(slot);
+    }
+
+    private void put(int slot, long k, int value) {
+        if (keys != null) {
+            keys[slot] = k;
+            values[slot] = value;
+        } else {
+            keyBuffer.put(slot, k);
+            valueBuffer.put(slot, value);
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        EdgeCounter old = new EdgeCounter(this);
+        allocate(newCapacity);
+        for (int i = 0; i < old.capacity; i++) {
+            long k = old.keyAt(i);
+            if (k != EMPTY) {
+                put(slotOf(k), k, old.valueAt(i));
+            }
+        }
+    }
+
+    // 仅保存另一张表当前的存储，供扩容时读取旧表
+    private EdgeCounter(EdgeCounter table) {
+        offHeap = table.offHeap;
+        keys = table.keys;
+        values = table.values;
+        keyBuffer = table.keyBuffer;
+        valueBuffer = table.valueBuffer;
+        capacity = table.capacity;
+    }
+
+    private void allocate(int capacity) {
+        this.capacity = capacity;
+        mask = capacity - 1;
+        if (offHeap) {
+            keyBuffer = OffHeap.longs(capacity);
+            valueBuffer = OffHeap.ints(capacity);
+            for (int i = 0; i < capacity; i++) {
+                keyBuffer.put(i, EMPTY);
+            }
+        } else {
+            keys = new long[capacity];
+            values = new int[capacity];
+            Arrays.fill(keys, EMPTY);
+        }
+    }
+
+    private static int mix(long k) {
+        long h = k * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSizeFor(int n) {
+        int capacity = 16;
+        while (capacity < n) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
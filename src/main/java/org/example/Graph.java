@@ -5,69 +5,488 @@ import java.util.*; // 导入 Java 中常用的工具类，如 Map、HashMap、S
 */
 package org.example;
 
-import java.util.Map;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.HashSet;
-import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * 有向图实现类，用于表示和处理有向图结构.
- * 使用邻接表存储图结构，支持动态添加节点和边，并提供各种图操作功能.
+ * 单词在加入时被分配一个整数编号（词典），边权重以 (起点编号, 终点编号) 为键
+ * 存放在原始类型的计数表中；写入方完成一批修改后调用 {@link #freeze()}，把图“冻结”为
+ * {@link CsrGraph}（压缩稀疏行数组，同时包含出边和入边索引）并发布为只读快照.
+ * <p>
+ * 线程安全：多个线程可以同时加边（边表按键的哈希分段加锁，词典为并发表）；
+ * {@link #addEdges} 一次加入一批边。快照是不可变的，以 volatile 引用发布，
+ * 发布时独占批次锁，因此快照中不会出现只加了一半的批次。
+ * 并发读线程通过 {@link #snapshot()} 取最近发布的快照，不加任何锁，写入在发布之后才可见；
+ * 加载器（{@link GraphLoader}、{@link CorpusPipeline}）在加载结束时发布，{@link #clear()} 与
+ * {@link #restore} 立即发布. getAdjList、getNeighbors、getEdgeWeight 等按单词的访问方法
+ * 经由 {@link #freeze()} 读取，单线程使用时总能看到之前的修改；图没有变化时同样无锁.
+ * <p>
+ * 以 {@code new Graph(true)} 创建时，建图阶段的边表与冻结后 CSR 中按边的数组都放在堆外的直接内存中，
+ * Java 堆只保存词典与按节点的数组，占用不随边数增长.
  */
 public class Graph { // 定义一个公共类 Graph，用于表示有向图
 
-    // 定义一个邻接表（adjacency list），用来存储图的结构。
-    // 每个键（String）是一个单词（节点），值是一个 Map（邻接节点 -> 权重）
-    private final Map<String, Map<String, Integer>> adjList = new HashMap<>();
+    // 边表的分段数（2 的幂）
+    private static final int STRIPES = 16;
+
+    // 边表与冻结后的按边数组是否放在堆外
+    private final boolean offHeap;
+
+    // 词典：单词 -> 编号（并发表，无锁查询），以及编号 -> 单词（只在分配新编号时加锁追加）
+    private final Map<String, Integer> wordIds = new ConcurrentHashMap<>();
+    private final Object dictionaryLock = new Object();
+    private volatile String[] words = new String[16];
+    private volatile int wordCount;
+
+    // 建图阶段的边权重表，键为 (from, to) 编号对，按键的哈希分段，每段以自身为锁
+    private final EdgeCounter[] stripes = new EdgeCounter[STRIPES];
+
+    // 写操作共享读锁（彼此可以并发），发布快照、清空、恢复时独占写锁
+    private final ReentrantReadWriteLock batchLock = new ReentrantReadWriteLock();
+
+    // 最近一次发布的 CSR 快照，其版本号落后于 version 时说明图已被修改
+    private volatile CsrGraph published;
+
+    // 由 restore 发布、边还没有填入边表的快照；第一次加边或重建快照前在批次写锁下填入后置为 null
+    private volatile CsrGraph unfilled;
+
+    // 版本号，每次修改图（加边、加节点、清空）都会递增，用于判断缓存是否过期
+    private final AtomicLong version = new AtomicLong();
+
+    // 词频：按节点编号的出现次数与语料的单词总数，建图时随边一起累加。
+    // 尚未成为节点的单词（如独占一行的单词）按单词暂存，之后成为节点时在冻结阶段转入
+    private final Object termLock = new Object();
+    private int[] termCounts = new int[16];
+    private final Map<String, Integer> pendingTerms = new HashMap<>();
+    private long tokenCount;
+
+    // 正在进行的修改记录，未记录时为 null
+    private volatile GraphDelta changes;
+
+    // 节点集合的只读视图，随图自动更新
+    private final Set<String> nodeView = new AbstractSet<String>() {
+        @Override
+        public Iterator<String> iterator() {
+            CsrGraph g = freeze();
+            return new Iterator<String>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < g.nodeCount();
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return g.word(next++);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return freeze().nodeCount();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof String && freeze().id((String) o) >= 0;
+        }
+    };
+
+    public Graph() {
+        this(false);
+    }
+
+    /**
+     * @param offHeap 为 true 时边数据放在堆外，适合边数超出堆容量的语料
+     */
+    public Graph(boolean offHeap) {
+        this.offHeap = offHeap;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new EdgeCounter(16, offHeap);
+        }
+        published = CsrGraph.build(Collections.emptyList(), stripes, new int[0], 0, 0, offHeap);
+    }
+
+    /** 边数据是否放在堆外. */
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /** 边表与最近发布的快照共占用的堆外字节数，堆内存储时为 0. */
+    public long offHeapBytes() {
+        long bytes = published.offHeapBytes();
+        for (EdgeCounter stripe : stripes) {
+            synchronized (stripe) {
+                bytes += stripe.offHeapBytes();
+            }
+        }
+        return bytes;
+    }
 
     /**
      * 向图中添加一条有向边 from -> to。
      * 如果已经存在该边，则把边的“权重”加1（表示该词序对出现次数）。
      */
     public void addEdge(String from, String to) {
-        from = from.toLowerCase(); // 把起点单词转换成小写，避免大小写混淆（统一处理）
-        to = to.toLowerCase();     // 同上，对终点单词也统一小写
+        // 把单词转换成小写，避免大小写混淆（统一处理）
+        addEdge(intern(from.toLowerCase()), intern(to.toLowerCase()));
+    }
 
-        // 如果起点还不在图中，就创建一个新的邻接表项
-        adjList.putIfAbsent(from, new HashMap<>());
+    /**
+     * 按节点编号添加一条有向边，权重加1.
+     */
+    public void addEdge(int from, int to) {
+        addEdge(from, to, 1);
+    }
 
-        // 获取起点的邻接表（即 from 节点所有的出边）
-        Map<String, Integer> neighbors = adjList.get(from);
+    /**
+     * 按节点编号把边 from -> to 的权重增加 weight.
+     */
+    public void addEdge(int from, int to, int weight) {
+        Lock lock = edgeLock();
+        try {
+            add(from, to, weight);
+            version.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+    }
 
-        // 将 to 节点加入 from 的邻接表中，如果已有则权重+1；否则初始为1
-        neighbors.put(to, neighbors.getOrDefault(to, 0) + 1);
+    /**
+     * 一次加入一批边（键为节点编号对，值为增加的权重）。
+     * 整批边要么都出现在之后发布的快照中，要么都不出现.
+     */
+    void addEdges(EdgeCounter batch) {
+        if (batch.size() == 0) {
+            return;
+        }
+        Lock lock = edgeLock();
+        try {
+            batch.forEach(this::add);
+            version.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
-     * 获取整个图的邻接表结构。
-     * 返回类型是 Map<String, Map<String, Integer>>
+     * 累加一批词频：第 i 个单词出现了 counts[i] 次，ids[i] 为其节点编号，
+     * 为 -1 时按 words[i] 查找（仍不是节点时暂存）. tokens 为这批语料的单词总数.
      */
-    public Map<String, Map<String, Integer>> getAdjList() {
-        return adjList;
+    void addTermCounts(int[] ids, String[] words, int[] counts, int size, long tokens) {
+        Lock lock = batchLock.readLock();
+        lock.lock();
+        try {
+            synchronized (termLock) {
+                for (int i = 0; i < size; i++) {
+                    if (counts[i] == 0) {
+                        continue;
+                    }
+                    int id = ids[i];
+                    if (id < 0) {
+                        Integer known = wordIds.get(words[i]);
+                        if (known == null) {
+                            pendingTerms.merge(words[i], counts[i], Integer::sum);
+                            continue;
+                        }
+                        id = known;
+                    }
+                    if (id >= termCounts.length) {
+                        termCounts = Arrays.copyOf(termCounts, Math.max(termCounts.length * 2, id + 1));
+                    }
+                    termCounts[id] += counts[i];
+                }
+                tokenCount += tokens;
+            }
+            version.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 取得并返回已加锁的批次读锁，保证边表已包含恢复的快照中的边
+    private Lock edgeLock() {
+        while (true) {
+            Lock lock = batchLock.readLock();
+            lock.lock();
+            if (unfilled == null) {
+                return lock;
+            }
+            lock.unlock();
+            Lock exclusive = batchLock.writeLock();
+            exclusive.lock();
+            try {
+                fillStripes();
+            } finally {
+                exclusive.unlock();
+            }
+        }
     }
-    /*public Map<String, Map<String, Integer>> getAdjList() {
-        Map<String, Map<String, Integer>> copy = new HashMap<>();
-        for (Map.Entry<String, Map<String, Integer>> entry : adjList.entrySet()) {
-            copy.put(entry.getKey(), new HashMap<>(entry.getValue())); // 深拷贝内层 Map
+
+    // 把 restore 发布的快照中的边填入边表（O(边数)），调用方需持有批次写锁
+    private void fillStripes() {
+        CsrGraph g = unfilled;
+        if (g == null) {
+            return;
         }
-        return copy;
-    }*/
+        for (int u = 0; u < g.nodeCount(); u++) {
+            for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+                stripeOf(u, g.target(e)).add(u, g.target(e), g.weight(e));
+            }
+        }
+        unfilled = null;
+    }
+
+    // 调用方需持有批次读锁
+    private void add(int from, int to, int weight) {
+        EdgeCounter stripe = stripeOf(from, to);
+        int total;
+        synchronized (stripe) {
+            total = stripe.add(from, to, weight);
+        }
+        GraphDelta delta = changes;
+        if (delta != null) {
+            synchronized (delta) {
+                delta.recordEdge(from, to, weight, total);
+            }
+        }
+    }
+
+    private EdgeCounter stripeOf(int from, int to) {
+        long h = EdgeCounter.key(from, to) * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (h >>> 60) & (STRIPES - 1)];
+    }
 
     /**
-     * 获取图中的所有节点（不只是起点，还包括终点）
-     * 因为终点节点可能不会作为起点出现在 adjList 的 key 中
+     * 返回单词的节点编号，单词不在图中时为其分配新编号（单词需已是小写）.
      */
-    public Set<String> getNodes() {
-        // 创建一个集合，先把所有起点节点加进去
-        Set<String> nodes = new HashSet<>(adjList.keySet());
+    public int intern(String word) {
+        Integer id = wordIds.get(word);
+        if (id != null) {
+            return id;
+        }
+        Lock lock = batchLock.readLock();
+        lock.lock();
+        try {
+            synchronized (dictionaryLock) {
+                id = wordIds.get(word);
+                if (id == null) {
+                    id = wordCount;
+                    String[] array = words;
+                    if (id == array.length) {
+                        array = Arrays.copyOf(array, id * 2);
+                    }
+                    array[id] = word;
+                    words = array;
+                    wordCount = id + 1;
+                    wordIds.put(word, id);
+                    GraphDelta delta = changes;
+                    if (delta != null) {
+                        synchronized (delta) {
+                            delta.recordNode(id);
+                        }
+                    }
+                    version.incrementAndGet();
+                }
+            }
+            return id;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 在词典中查找单词的节点编号（包括尚未发布的单词），不存在时返回 -1.
+     */
+    public int idOf(String word) {
+        Integer id = wordIds.get(word.toLowerCase());
+        return id == null ? -1 : id;
+    }
+
+    /** 节点编号对应的单词. */
+    public String wordOf(int id) {
+        if (id < 0 || id >= wordCount) {
+            throw new IndexOutOfBoundsException("节点编号越界：" + id);
+        }
+        return words[id];
+    }
+
+    /** 节点总数. */
+    public int nodeCount() {
+        return wordCount;
+    }
+
+    /**
+     * 发布当前图的只读 CSR 快照并返回。图未被修改时直接返回上次发布的快照（只比较版本号，无锁），
+     * 否则独占批次锁，等正在进行的批次完成后重建（O(边数)）. 并发读线程应使用 {@link #snapshot()}.
+     */
+    public CsrGraph freeze() {
+        CsrGraph g = published;
+        if (g.version() == version.get()) {
+            return g;
+        }
+        Lock lock = batchLock.writeLock();
+        lock.lock();
+        try {
+            long current = version.get();
+            g = published;
+            if (g.version() != current) {
+                int[] tf;
+                long tokens;
+                synchronized (termLock) {
+                    // 暂存的单词已成为节点时转入按编号的词频
+                    pendingTerms.entrySet().removeIf(entry -> {
+                        Integer id = wordIds.get(entry.getKey());
+                        if (id == null) {
+                            return false;
+                        }
+                        if (id >= termCounts.length) {
+                            termCounts = Arrays.copyOf(termCounts, Math.max(termCounts.length * 2, id + 1));
+                        }
+                        termCounts[id] += entry.getValue();
+                        return true;
+                    });
+                    tf = Arrays.copyOf(termCounts, wordCount);
+                    tokens = tokenCount;
+                }
+                fillStripes();
+                g = CsrGraph.build(Arrays.asList(words).subList(0, wordCount), stripes, tf, tokens, current,
+                        offHeap);
+                published = g;
+            }
+            return g;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 最近一次发布的快照（不包含尚未发布的写入），读取时不加锁.
+     */
+    public CsrGraph snapshot() {
+        return published;
+    }
+
+    /**
+     * 清空图中的所有节点和边，并立即发布空快照.
+     */
+    public void clear() {
+        Lock lock = batchLock.writeLock();
+        lock.lock();
+        try {
+            synchronized (dictionaryLock) {
+                wordIds.clear();
+                Arrays.fill(words, 0, wordCount, null);
+                wordCount = 0;
+            }
+            for (EdgeCounter stripe : stripes) {
+                stripe.clear();
+            }
+            unfilled = null;
+            synchronized (termLock) {
+                termCounts = new int[16];
+                pendingTerms.clear();
+                tokenCount = 0;
+            }
+            long next = version.incrementAndGet();
+            published = CsrGraph.build(Collections.emptyList(), stripes, new int[0], 0, next, offHeap);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 用给定的单词表、CSR 数组与词频替换图的全部内容（用于加载快照），并立即发布.
+     * 发布的快照直接使用这些数组，无需重新排序；开销为 O(节点数) 的词典重建.
+     * 边要到第一次加边（或快照需要重建）时才填入边表，只读的加载不必把全部边重新散列一遍.
+     */
+    void restore(String[] wordArray, int[] offsets, int[] targets, int[] weights, int[] tf, long tokens) {
+        Lock lock = batchLock.writeLock();
+        lock.lock();
+        try {
+            long next = version.get() + 1;
+            CsrGraph g = CsrGraph.of(wordArray, offsets, targets, weights, tf, tokens, next, offHeap);
+            synchronized (dictionaryLock) {
+                wordIds.clear();
+                for (int u = 0; u < wordArray.length; u++) {
+                    wordIds.put(wordArray[u], u);
+                }
+                words = Arrays.copyOf(wordArray, Math.max(16, wordArray.length));
+                wordCount = wordArray.length;
+            }
+            for (EdgeCounter stripe : stripes) {
+                stripe.clear();
+            }
+            unfilled = g;
+            synchronized (termLock) {
+                termCounts = Arrays.copyOf(tf, Math.max(16, tf.length));
+                pendingTerms.clear();
+                tokenCount = tokens;
+            }
+            version.set(next);
+            published = g;
+        } finally {
+            lock.unlock();
+        }
+    }
 
-        // 遍历所有邻接表，把所有终点节点也加进去
-        for (Map<String, Integer> neighbors : adjList.values()) {
-            nodes.addAll(neighbors.keySet());
+    /**
+     * 开始记录之后对图的修改（加入的节点与边），返回修改记录；已在记录时会重新开始.
+     */
+    GraphDelta startTracking() {
+        GraphDelta delta = new GraphDelta(wordCount);
+        changes = delta;
+        return delta;
+    }
+
+    /** 停止记录修改. */
+    void stopTracking() {
+        changes = null;
+    }
+
+    /** 当前版本号. */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * 获取整个图的邻接表结构（副本）。
+     * 返回类型是 Map<String, Map<String, Integer>>，只包含有出边的节点
+     */
+    public Map<String, Map<String, Integer>> getAdjList() {
+        CsrGraph g = freeze();
+        Map<String, Map<String, Integer>> copy = new LinkedHashMap<>();
+        for (int u = 0; u < g.nodeCount(); u++) {
+            if (g.outDegree(u) > 0) {
+                copy.put(g.word(u), neighborsOf(g, u));
+            }
         }
+        return copy;
+    }
 
-        return nodes; // 返回包含所有节点的集合
+    /**
+     * 获取图中的所有节点（不只是起点，还包括终点），按加入顺序排列
+     * 返回的是只读视图，不会复制节点，图被修改后视图随之更新（遍历时使用当时的快照）
+     */
+    public Set<String> getNodes() {
+        return nodeView;
     }
 
     /**
@@ -75,38 +494,54 @@ public class Graph { // 定义一个公共类 Graph，用于表示有向图
      * 如果节点不存在，返回一个空的邻接表（即空 map）
      */
     public Map<String, Integer> getNeighbors(String node) {
-        return adjList.getOrDefault(node.toLowerCase(), new HashMap<>());
+        CsrGraph g = freeze();
+        int u = g.id(node.toLowerCase());
+        if (u < 0) {
+            return Collections.emptyMap();
+        }
+        return neighborsOf(g, u);
+    }
+
+    /**
+     * 获取某个节点的所有前驱（能连接到它的节点）及对应边的权重
+     * 如果节点不存在，返回一个空 map
+     */
+    public Map<String, Integer> getPredecessors(String node) {
+        CsrGraph g = freeze();
+        int v = g.id(node.toLowerCase());
+        if (v < 0) {
+            return Collections.emptyMap();
+        }
+        Map<String, Integer> predecessors = new LinkedHashMap<>();
+        for (int i = g.inStart(v); i < g.inEnd(v); i++) {
+            predecessors.put(g.word(g.source(i)), g.inWeight(i));
+        }
+        return predecessors;
     }
-    /*public Map<String, Integer> getNeighbors(String node) {
-        Map<String, Integer> neighbors = adjList.getOrDefault(node.toLowerCase(), new HashMap<>());
-        return new HashMap<>(neighbors); // 返回副本
-    }*/
 
     /**
      * 获取两个节点之间的边的权重
      * 如果边不存在，则返回0
      */
     public int getEdgeWeight(String from, String to) {
-        return adjList.getOrDefault(from.toLowerCase(), new HashMap<>())
-                .getOrDefault(to.toLowerCase(), 0);
+        CsrGraph g = freeze();
+        int u = g.id(from.toLowerCase());
+        int v = g.id(to.toLowerCase());
+        return u < 0 || v < 0 ? 0 : g.edgeWeight(u, v);
     }
 
-    /**
-     * 判断图中是否包含指定的节点（只检查是否作为起点存在）
-     */
     /**
      * 判断图中是否包含指定的节点（包括作为起点或终点）
      */
     public boolean containsNode(String word) {
-        word = word.toLowerCase();
-        if (adjList.containsKey(word)) {
-            return true;
-        }
-        for (Map<String, Integer> neighbors : adjList.values()) {
-            if (neighbors.containsKey(word)) {
-                return true;
-            }
+        return freeze().id(word.toLowerCase()) >= 0;
+    }
+
+    private static Map<String, Integer> neighborsOf(CsrGraph g, int u) {
+        Map<String, Integer> neighbors = new LinkedHashMap<>();
+        for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+            neighbors.put(g.word(g.target(e)), g.weight(e));
         }
-        return false;
+        return neighbors;
     }
 }
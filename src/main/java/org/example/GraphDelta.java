@@ -0,0 +1,89 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * 一段时间内对 {@link Graph} 的修改记录（由 {@link Graph#startTracking()} 开始记录）：
+ * 新加入的节点、新出现的边，以及每条边增加的权重.
+ * 节点编号只增不减，因此编号不小于 baseNodeCount 的节点都是新节点.
+ */
+final class GraphDelta {
+
+    final int baseNodeCount;                          // 开始记录时的节点数
+    private int nodeCount;                            // 目前的节点数
+    private final EdgeCounter added = new EdgeCounter(); // 每条边增加的权重
+    private int newEdges;
+
+    GraphDelta(int baseNodeCount) {
+        this.baseNodeCount = baseNodeCount;
+        this.nodeCount = baseNodeCount;
+    }
+
+    void recordNode(int id) {
+        nodeCount = Math.max(nodeCount, id + 1);
+    }
+
+    /** 记录一次加边：delta 为本次增加的权重，weight 为增加后的权重. */
+    void recordEdge(int from, int to, int delta, int weight) {
+        added.add(from, to, delta);
+        if (weight == delta) {
+            newEdges++;
+        }
+    }
+
+    /** 新加入的节点数. */
+    int newNodes() {
+        return nodeCount - baseNodeCount;
+    }
+
+    /** 新出现的边数. */
+    int newEdges() {
+        return newEdges;
+    }
+
+    /** 权重发生变化的边数（包括新边）. */
+    int changedEdges() {
+        return added.size();
+    }
+
+    /** 边 from -> to 在记录期间增加的权重. */
+    int addedWeight(int from, int to) {
+        return added.get(from, to);
+    }
+
+    /**
+     * 受影响的节点（新节点以及变化的边的端点），按编号升序.
+     */
+    int[] changedNodes() {
+        boolean[] changed = new boolean[nodeCount];
+        Arrays.fill(changed, baseNodeCount, nodeCount, true);
+        added.forEach((from, to, weight) -> {
+            changed[from] = true;
+            changed[to] = true;
+        });
+        int count = 0;
+        for (boolean c : changed) {
+            if (c) {
+                count++;
+            }
+        }
+        int[] nodes = new int[count];
+        for (int u = 0, i = 0; u < nodeCount; u++) {
+            if (changed[u]) {
+                nodes[i++] = u;
+            }
+        }
+        return nodes;
+    }
+
+    /** 遍历变化的边，回调参数依次为起点、终点、增加的权重. */
+    void forEachEdge(EdgeCounter.EdgeConsumer consumer) {
+        added.forEach(consumer);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("新增节点 %d 个，新增边 %d 条，权重变化的边 %d 条，受影响节点 %d 个",
+                newNodes(), newEdges, changedEdges(), changedNodes().length);
+    }
+}
@@ -0,0 +1,288 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * 把语料文件读入 {@link Graph}：同一行中相邻的两个单词构成一条有向边，
+ * 同时把每个单词的出现次数累加到图的词频中.
+ */
+final class GraphLoader {
+
+    /**
+     * 一次加载的统计信息.
+     */
+    static final class Stats {
+        final long bytes;
+        final long tokens;
+        final long nanos;
+
+        Stats(long bytes, long tokens, long nanos) {
+            this.bytes = bytes;
+            this.tokens = tokens;
+            this.nanos = nanos;
+        }
+
+        /** 吞吐量（MB/s）. */
+        double megabytesPerSecond() {
+            return nanos == 0 ? 0.0 : bytes / 1e6 / (nanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("读取 %d 字节，%d 个单词，耗时 %.1f ms，吞吐 %.2f MB/s",
+                    bytes, tokens, nanos / 1e6, megabytesPerSecond());
+        }
+    }
+
+    // 每个分块的最小字节数，避免小文件被切得过碎
+    private static final long MIN_CHUNK = 1L << 20;
+    // 单个分块的最大字节数（一次内存映射的上限以内）
+    private static final long MAX_CHUNK = 1L << 30;
+
+    private GraphLoader() {
+    }
+
+    /**
+     * 顺序加载文件，把边与词频加入 graph，结束时发布新快照.
+     */
+    static Stats load(Path file, Graph graph) throws IOException {
+        long start = System.nanoTime();
+        CorpusTokenizer tokenizer = new CorpusTokenizer();
+        EdgeSink sink = new EdgeSink(tokenizer, graph);
+        long bytes = tokenizer.tokenize(file, sink);
+        sink.finish();
+        graph.freeze();
+        return new Stats(bytes, sink.tokenCount, System.nanoTime() - start);
+    }
+
+    /**
+     * 并行加载文件：在空白字符处把文件切成若干块，由 ForkJoinPool 为每块分别分词并
+     * 建立局部边表，最后按块的顺序合并到 graph 中，并补上跨越块边界的那条边。
+     * 合并结果的边权重与顺序加载完全相同（节点编号的分配顺序可能不同），结束时发布新快照.
+     */
+    static Stats loadParallel(Path file, Graph graph, int parallelism) throws IOException {
+        return loadParallel(file, graph, parallelism, MIN_CHUNK);
+    }
+
+    static Stats loadParallel(Path file, Graph graph, int parallelism, long minChunk)
+            throws IOException {
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long chunkSize = Math.min(MAX_CHUNK, Math.max(minChunk, size / (parallelism * 4L) + 1));
+
+            List<Callable<Chunk>> tasks = new ArrayList<>();
+            for (long from = 0; from < size; ) {
+                long to = splitPoint(channel, Math.min(size, from + chunkSize), size);
+                long chunkFrom = from;
+                tasks.add(() -> Chunk.tokenize(channel, chunkFrom, to));
+                from = to;
+            }
+
+            long tokenCount = 0;
+            Chunk carry = null;   // 末尾单词尚未被换行切断的上一块
+            for (Future<Chunk> future : pool.invokeAll(tasks)) {
+                Chunk chunk = future.get();
+                chunk.mergeInto(graph, carry);
+                tokenCount += chunk.tokenCount;
+                if (chunk.first >= 0) {
+                    carry = chunk.breakAfterLast ? null : chunk;
+                } else if (chunk.sawBreak) {
+                    carry = null;
+                }
+            }
+            graph.freeze();
+            return new Stats(size, tokenCount, System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("加载被中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // 从 pos 开始向后找到第一个空白字节的位置，作为块的结束位置
+    private static long splitPoint(FileChannel channel, long pos, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        while (pos < size) {
+            buffer.clear();
+            int n = channel.read(buffer, pos);
+            for (int i = 0; i < n; i++) {
+                byte b = buffer.get(i);
+                if (b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == 0x0B || b == '\f') {
+                    return pos + i;
+                }
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    /**
+     * 一个分块的分词结果：局部词表、局部边表、词频，以及首尾单词和它们与块边界之间是否隔着换行.
+     */
+    private static final class Chunk implements CorpusTokenizer.TokenSink {
+        final CorpusTokenizer tokenizer = new CorpusTokenizer();
+        final EdgeCounter edges = new EdgeCounter();
+        int[] counts = new int[1024];
+        long tokenCount;
+        int first = -1;             // 块内第一个单词
+        int last = -1;              // 块内最后一个单词
+        boolean sawBreak;           // 第一个单词之前（或整个块内）出现过换行
+        boolean breakAfterLast;     // 最后一个单词之后出现过换行
+        private int prev = -1;
+
+        static Chunk tokenize(FileChannel channel, long from, long to) throws IOException {
+            Chunk chunk = new Chunk();
+            chunk.tokenizer.feed(channel.map(FileChannel.MapMode.READ_ONLY, from, to - from), chunk);
+            chunk.tokenizer.finish(chunk);
+            return chunk;
+        }
+
+        @Override
+        public void word(int id) {
+            tokenCount++;
+            if (id >= counts.length) {
+                counts = Arrays.copyOf(counts, counts.length * 2);
+            }
+            counts[id]++;
+            if (first < 0) {
+                first = id;
+            } else if (prev >= 0) {
+                edges.add(prev, id, 1);
+            }
+            prev = id;
+            last = id;
+            breakAfterLast = false;
+        }
+
+        @Override
+        public void lineBreak() {
+            prev = -1;
+            if (first < 0) {
+                sawBreak = true;
+            } else {
+                breakAfterLast = true;
+            }
+        }
+
+        /**
+         * 把本块合并进 graph；carry 非空时补上从它的最后一个单词到本块第一个单词的边.
+         */
+        void mergeInto(Graph graph, Chunk carry) {
+            int[] graphIds = new int[tokenizer.wordCount()];
+            Arrays.fill(graphIds, -1);
+            EdgeCounter batch = new EdgeCounter(edges.size() + 1);
+            if (carry != null && first >= 0 && !sawBreak) {
+                int from = graph.intern(carry.tokenizer.word(carry.last));
+                batch.add(from, graphId(graph, graphIds, first), 1);
+            }
+            edges.forEach((from, to, weight) ->
+                    batch.add(graphId(graph, graphIds, from), graphId(graph, graphIds, to), weight));
+            graph.addEdges(batch);  // 整块作为一个批次加入
+            String[] words = new String[graphIds.length];
+            for (int id = 0; id < graphIds.length; id++) {
+                words[id] = tokenizer.word(id);
+            }
+            graph.addTermCounts(graphIds, words, counts, graphIds.length, tokenCount);
+        }
+
+        private int graphId(Graph graph, int[] graphIds, int id) {
+            if (graphIds[id] < 0) {
+                graphIds[id] = graph.intern(tokenizer.word(id));
+            }
+            return graphIds[id];
+        }
+    }
+
+    /**
+     * 把分词器的局部编号转换成图中的节点编号并连边。
+     * 只有真正参与连边的单词才会成为图中的节点，与原先的建图方式保持一致.
+     */
+    private static final class EdgeSink implements CorpusTokenizer.TokenSink {
+        // 累积到这么多条不同的边后作为一个批次加入图
+        private static final int BATCH_EDGES = 1 << 16;
+
+        private final CorpusTokenizer tokenizer;
+        private final Graph graph;
+        private int[] graphIds = new int[1024];   // 局部编号 -> 图节点编号，-1 表示尚未加入图
+        private int[] counts = new int[1024];     // 局部编号 -> 出现次数
+        private final EdgeCounter pending = new EdgeCounter(BATCH_EDGES);
+        private int prev = -1;
+        private long tokenCount;
+
+        EdgeSink(CorpusTokenizer tokenizer, Graph graph) {
+            this.tokenizer = tokenizer;
+            this.graph = graph;
+            Arrays.fill(graphIds, -1);
+        }
+
+        @Override
+        public void word(int id) {
+            tokenCount++;
+            if (id >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(counts.length * 2, id + 1));
+            }
+            counts[id]++;
+            if (prev >= 0) {
+                pending.add(graphId(prev), graphId(id), 1);
+                if (pending.size() >= BATCH_EDGES) {
+                    flush();
+                }
+            }
+            prev = id;
+        }
+
+        void flush() {
+            graph.addEdges(pending);
+            pending.clear();
+        }
+
+        // 加入剩余的边，再一次性加入整个文件的词频
+        void finish() {
+            flush();
+            int n = tokenizer.wordCount();
+            int[] ids = new int[n];
+            String[] words = new String[n];
+            for (int id = 0; id < n; id++) {
+                ids[id] = id < graphIds.length ? graphIds[id] : -1;
+                words[id] = tokenizer.word(id);
+            }
+            graph.addTermCounts(ids, words, counts, n, tokenCount);
+        }
+
+        @Override
+        public void lineBreak() {
+            prev = -1;
+        }
+
+        private int graphId(int id) {
+            if (id >= graphIds.length) {
+                int oldLength = graphIds.length;
+                graphIds = Arrays.copyOf(graphIds, Math.max(oldLength * 2, id + 1));
+                Arrays.fill(graphIds, oldLength, graphIds.length, -1);
+            }
+            if (graphIds[id] < 0) {
+                graphIds[id] = graph.intern(tokenizer.word(id));
+            }
+            return graphIds[id];
+        }
+    }
+}
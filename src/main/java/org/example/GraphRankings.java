@@ -0,0 +1,98 @@
+package org.example;
+
+import java.util.Locale;
+
+/**
+ * 图上的排行查询：按 PageRank、入度、出度、词频排出前 k 个单词，权重最大的前 k 条边，
+ * 以及某个单词权重最大的前 k 个后继. 全部基于 {@link TopK} 的有界堆直接在 CSR 数组上选择，
+ * 时间 O(n log k)，不对整张图排序.
+ */
+final class GraphRankings {
+
+    /** 单词排行的指标. */
+    enum Metric {
+        PAGERANK,
+        IN_DEGREE,      // 不同前驱的个数
+        OUT_DEGREE,     // 不同后继的个数
+        TF;             // 在语料中出现的次数
+
+        /** 解析指标名（不区分大小写），如 pagerank、in、out、tf；无法识别时返回 null. */
+        static Metric parse(String name) {
+            return switch (name.toLowerCase(Locale.ROOT)) {
+                case "pagerank", "pr" -> PAGERANK;
+                case "in", "indegree" -> IN_DEGREE;
+                case "out", "outdegree" -> OUT_DEGREE;
+                case "tf", "freq" -> TF;
+                default -> null;
+            };
+        }
+    }
+
+    private GraphRankings() {
+    }
+
+    /**
+     * 按 metric 选出得分最高的至多 k 个节点，按得分从高到低返回，得分相同时编号小的优先.
+     *
+     * @param pageRank 按 PAGERANK 排行时使用的得分，其他指标可为 null
+     */
+    static int[] topWords(CsrGraph g, Metric metric, double[] pageRank, int k) {
+        int n = g.nodeCount();
+        return switch (metric) {
+            case PAGERANK -> {
+                if (pageRank == null || pageRank.length != n) {
+                    throw new IllegalArgumentException("按 PageRank 排行需要先计算 PageRank");
+                }
+                yield TopK.select(n, null, u -> pageRank[u], k);
+            }
+            case IN_DEGREE -> TopK.select(n, null, g::inDegree, k);
+            case OUT_DEGREE -> TopK.select(n, null, g::outDegree, k);
+            case TF -> TopK.select(n, null, g::termCount, k);
+        };
+    }
+
+    /** 节点在 metric 下的得分，与 {@link #topWords} 的排序依据一致. */
+    static double score(CsrGraph g, Metric metric, double[] pageRank, int u) {
+        return switch (metric) {
+            case PAGERANK -> pageRank[u];
+            case IN_DEGREE -> g.inDegree(u);
+            case OUT_DEGREE -> g.outDegree(u);
+            case TF -> g.termCount(u);
+        };
+    }
+
+    /**
+     * 权重最大的至多 k 条边，返回边的下标（可用 {@link #source}、{@link CsrGraph#target} 取两端），
+     * 权重相同时下标小（即起点编号小）的优先.
+     */
+    static int[] heaviestEdges(CsrGraph g, int k) {
+        return TopK.select(g.edgeCount(), null, g::weight, k);
+    }
+
+    /**
+     * 节点 u 权重最大的至多 k 条出边，返回边的下标；权重相同时终点编号小的优先.
+     */
+    static int[] topSuccessors(CsrGraph g, int u, int k) {
+        int start = g.outStart(u);
+        int[] best = TopK.select(g.outDegree(u), null, i -> g.weight(start + i), k);
+        for (int i = 0; i < best.length; i++) {
+            best[i] += start;
+        }
+        return best;
+    }
+
+    /** 出边下标 e 的起点：在行偏移上二分查找，不需要额外的 边 -> 起点 数组. */
+    static int source(CsrGraph g, int e) {
+        int lo = 0;
+        int hi = g.nodeCount() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (g.outStart(mid) <= e) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+}
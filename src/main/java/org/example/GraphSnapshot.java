@@ -0,0 +1,250 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * 图的二进制快照：保存建好的图，下次启动时直接加载，无需重新分词与逐条加边.
+ * <p>
+ * 文件格式（大端序）：
+ * <pre>
+ *   int   魔数 "TGSN"
+ *   int   格式版本
+ *   int   节点数 n
+ *   int   边数 m
+ *   long  语料的单词总数
+ *   int   词典字节数 d
+ *   int[n]     每个单词的 UTF-8 字节数
+ *   byte[d]    按编号顺序拼接的单词
+ *   int[n + 1] 出边行偏移
+ *   int[m]     终点编号（行内升序）
+ *   int[m]     边权重
+ *   int[n]     每个节点在语料中的词频
+ *   long  以上全部字节的 CRC32C 校验和
+ * </pre>
+ * 加载时文件被只读映射用于校验，各数组随后复制到堆上（开启堆外模式时按边的数组再复制到直接内存），
+ * 经结构检查后构造冻结的 {@link CsrGraph}，节点编号、边的顺序与保存时完全一致.
+ * 加载开销与节点数加边数成正比，省去的是分词和散列，而不是读入本身.
+ */
+final class GraphSnapshot {
+
+    static final int MAGIC = 0x5447534E;    // "TGSN"
+    static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 28;
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private GraphSnapshot() {
+    }
+
+    /**
+     * 快照中除图结构以外的内容.
+     */
+    static final class Contents {
+        final int[] termCounts;     // 按节点编号的词频
+        final long tokens;          // 语料的单词总数
+        final long bytes;           // 快照文件大小
+
+        Contents(int[] termCounts, long tokens, long bytes) {
+            this.termCounts = termCounts;
+            this.tokens = tokens;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * 判断文件是否以快照魔数开头.
+     */
+    static boolean isSnapshot(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(4);
+            while (head.hasRemaining() && channel.read(head) >= 0) {
+                // 读满 4 个字节或到达文件末尾
+            }
+            return !head.hasRemaining() && head.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * 把冻结的图与词频写入快照文件，返回写入的字节数.
+     */
+    static long save(CsrGraph g, int[] termCounts, long tokens, Path path) throws IOException {
+        int n = g.nodeCount();
+        int m = g.edgeCount();
+        if (termCounts.length != n) {
+            throw new IllegalArgumentException("词频数组长度与节点数不一致");
+        }
+        byte[][] encoded = new byte[n][];
+        long dictionaryBytes = 0;
+        for (int u = 0; u < n; u++) {
+            encoded[u] = g.word(u).getBytes(StandardCharsets.UTF_8);
+            dictionaryBytes += encoded[u].length;
+        }
+        if (dictionaryBytes > Integer.MAX_VALUE) {
+            throw new IOException("词典过大，无法写入快照");
+        }
+
+        try (OutputStream stream = Files.newOutputStream(path)) {
+            Output out = new Output(stream);
+            out.putInt(MAGIC);
+            out.putInt(FORMAT_VERSION);
+            out.putInt(n);
+            out.putInt(m);
+            out.putLong(tokens);
+            out.putInt((int) dictionaryBytes);
+            for (byte[] word : encoded) {
+                out.putInt(word.length);
+            }
+            for (byte[] word : encoded) {
+                out.put(word);
+            }
+            for (int u = 0; u <= n; u++) {
+                out.putInt(u < n ? g.outStart(u) : m);
+            }
+            for (int e = 0; e < m; e++) {
+                out.putInt(g.target(e));
+            }
+            for (int e = 0; e < m; e++) {
+                out.putInt(g.weight(e));
+            }
+            for (int count : termCounts) {
+                out.putInt(count);
+            }
+            return out.finish();
+        }
+    }
+
+    /**
+     * 映射并校验快照文件，用其内容替换 graph，返回词频等附加内容.
+     * 开销为 O(节点数 + 边数)：校验和、把各数组复制出映射区、结构检查与入边索引、词典重建；
+     * 不再把每条边重新散列进 graph 的边表，边要到之后第一次加边时才填入.
+     */
+    static Contents load(Path path, Graph graph) throws IOException {
+        MappedByteBuffer buffer;
+        long size;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("快照文件超过 2 GB，无法映射");
+            }
+            if (size < HEADER_BYTES + 8) {
+                throw new IOException("快照文件不完整");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("不是图快照文件：" + path);
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("不支持的快照版本：" + buffer.getInt(4));
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().position(0).limit((int) size - 8));
+        if (crc.getValue() != buffer.getLong((int) size - 8)) {
+            throw new IOException("快照校验和不匹配，文件可能已损坏");
+        }
+
+        buffer.position(8);
+        int n = buffer.getInt();
+        int m = buffer.getInt();
+        long tokens = buffer.getLong();
+        int dictionaryBytes = buffer.getInt();
+        long expected = HEADER_BYTES + 4L * n + dictionaryBytes + 4L * (n + 1) + 8L * m + 4L * n + 8;
+        if (n < 0 || m < 0 || dictionaryBytes < 0 || expected != size) {
+            throw new IOException("快照文件长度与头部不一致");
+        }
+
+        int[] lengths = ints(buffer, n);
+        byte[] dictionary = new byte[dictionaryBytes];
+        buffer.get(dictionary);
+        String[] words = new String[n];
+        int offset = 0;
+        for (int u = 0; u < n; u++) {
+            if (lengths[u] < 0 || lengths[u] > dictionaryBytes - offset) {
+                throw new IOException("快照词典已损坏");
+            }
+            words[u] = new String(dictionary, offset, lengths[u], StandardCharsets.UTF_8);
+            offset += lengths[u];
+        }
+        int[] offsets = ints(buffer, n + 1);
+        int[] targets = ints(buffer, m);
+        int[] weights = ints(buffer, m);
+        int[] termCounts = ints(buffer, n);
+
+        try {
+            graph.restore(words, offsets, targets, weights, termCounts, tokens);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("快照结构不合法：" + e.getMessage(), e);
+        }
+        return new Contents(termCounts, tokens, size);
+    }
+
+    private static int[] ints(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + 4 * count);
+        return values;
+    }
+
+    /**
+     * 带缓冲的写出器，写出的同时累计 CRC32C.
+     */
+    private static final class Output {
+        private final OutputStream stream;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        private final CRC32C crc = new CRC32C();
+        private long written;
+
+        Output(OutputStream stream) {
+            this.stream = stream;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void put(byte[] bytes) throws IOException {
+            for (int i = 0; i < bytes.length; ) {
+                ensure(1);
+                int chunk = Math.min(buffer.remaining(), bytes.length - i);
+                buffer.put(bytes, i, chunk);
+                i += chunk;
+            }
+        }
+
+        // 写出剩余内容与校验和，返回文件总字节数
+        long finish() throws IOException {
+            flush();
+            buffer.putLong(crc.getValue());
+            stream.write(buffer.array(), 0, buffer.position());
+            return written + buffer.position();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            crc.update(buffer.array(), 0, buffer.position());
+            stream.write(buffer.array(), 0, buffer.position());
+            written += buffer.position();
+            buffer.clear();
+        }
+    }
+}
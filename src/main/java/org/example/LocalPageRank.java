@@ -0,0 +1,177 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * 单个单词的近似 PageRank，只访问目标节点附近的子图（反向局部推送）.
+ * <p>
+ * {@link PageRankEngine} 的不动点满足 x = c·1 + d·M·x，其中 (M·x)_v = Σ_{u→v} x_u / outWeight(u)，
+ * c = (1-d)/N + d·(出度为 0 的节点得分之和)/N。记 h = (I - dM)^{-1}·1，则 x = c·h。
+ * 对目标节点 v，从残差 r = e_v 出发沿入边反向推送：每次把节点 w 的残差计入估计值，
+ * 并按 d·r_w / outWeight(u) 分给每个前驱 u。所有残差都不超过 epsilon 时停止，
+ * 此时估计值与真实值的绝对误差不超过 epsilon（因为全部得分之和不超过 1）.
+ * <p>
+ * 常数 c 依赖于出度为 0 的节点的得分之和，用同样的推送从所有这些节点出发计算一次，
+ * 并随实例缓存。词频初始化只影响迭代的中间过程，不改变不动点，因此近似值对应的
+ * 正是 calPageRankWithTF 迭代收敛到的结果.
+ */
+final class LocalPageRank {
+
+    /**
+     * 一次近似查询的结果.
+     */
+    static final class Estimate {
+        final double score;
+        final double errorBound;
+        final int touched;      // 推送过程中访问过的节点数
+
+        Estimate(double score, double errorBound, int touched) {
+            this.score = score;
+            this.errorBound = errorBound;
+            this.touched = touched;
+        }
+    }
+
+    private final CsrGraph graph;
+    private final double damping;
+    private final double epsilon;
+    private double danglingH = Double.NaN;    // 出度为 0 的节点的 h 值之和，懒计算
+
+    // 推送用的工作数组，按需扩容；每次查询后只清理访问过的位置
+    private final double[] residual;
+    private final double[] outWeight;
+    private final boolean[] queued;
+    private final boolean[] seen;
+    private int[] queue = new int[64];      // 循环队列（先进先出）
+    private int queueHead;
+    private int queueSize;
+    private int[] touched = new int[64];
+    private int touchedCount;
+
+    /**
+     * @param epsilon 绝对误差上界，必须是有限正数：为 0 时环上的残差停在最小的非规格化数上不再减小，
+     *                为负数时零残差也会被反复推送，两种情况都不会结束
+     */
+    LocalPageRank(CsrGraph graph, double damping, double epsilon) {
+        if (!(epsilon > 0) || Double.isInfinite(epsilon)) {
+            throw new IllegalArgumentException("误差上界必须是有限正数：" + epsilon);
+        }
+        this.graph = graph;
+        this.damping = damping;
+        this.epsilon = epsilon;
+        int n = graph.nodeCount();
+        residual = new double[n];
+        outWeight = new double[n];
+        queued = new boolean[n];
+        seen = new boolean[n];
+        Arrays.fill(outWeight, -1);
+    }
+
+    CsrGraph graph() {
+        return graph;
+    }
+
+    double epsilon() {
+        return epsilon;
+    }
+
+    /**
+     * 估计单词的 PageRank，单词不在图中时返回 null.
+     */
+    synchronized Estimate estimate(String word) {
+        int v = graph.id(word.toLowerCase());
+        if (v < 0) {
+            return null;
+        }
+        int n = graph.nodeCount();
+        if (Double.isNaN(danglingH)) {
+            for (int u = 0; u < n; u++) {
+                if (graph.outDegree(u) == 0) {
+                    seed(u);
+                }
+            }
+            danglingH = push();
+            reset();
+        }
+
+        seed(v);
+        double h = push();
+        int visited = touchedCount;
+        reset();
+
+        double c = (1 - damping) / n / (1 - damping * danglingH / n);
+        return new Estimate(c * h, epsilon, visited);
+    }
+
+    private void seed(int u) {
+        residual[u] = 1.0;
+        touch(u);
+        enqueue(u);
+    }
+
+    // 反复推送残差超过 epsilon 的节点，返回估计的 h 值（或 h 值之和）
+    private double push() {
+        double estimate = 0.0;
+        while (queueSize > 0) {
+            int w = queue[queueHead];
+            queueHead = (queueHead + 1) & (queue.length - 1);
+            queueSize--;
+            queued[w] = false;
+            double rw = residual[w];
+            residual[w] = 0.0;
+            estimate += rw;
+            for (int i = graph.inStart(w); i < graph.inEnd(w); i++) {
+                int u = graph.source(i);
+                touch(u);
+                residual[u] += damping * rw / outWeight(u);
+                if (residual[u] > epsilon && !queued[u]) {
+                    enqueue(u);
+                }
+            }
+        }
+        return estimate;
+    }
+
+    private void enqueue(int u) {
+        if (queueSize == queue.length) {
+            int[] grown = new int[queue.length * 2];
+            for (int i = 0; i < queueSize; i++) {
+                grown[i] = queue[(queueHead + i) & (queue.length - 1)];
+            }
+            queue = grown;
+            queueHead = 0;
+        }
+        queue[(queueHead + queueSize++) & (queue.length - 1)] = u;
+        queued[u] = true;
+    }
+
+    private void touch(int u) {
+        if (seen[u]) {
+            return;
+        }
+        seen[u] = true;
+        if (touchedCount == touched.length) {
+            touched = Arrays.copyOf(touched, touchedCount * 2);
+        }
+        touched[touchedCount++] = u;
+    }
+
+    private void reset() {
+        for (int i = 0; i < touchedCount; i++) {
+            residual[touched[i]] = 0.0;
+            seen[touched[i]] = false;
+        }
+        touchedCount = 0;
+    }
+
+    private double outWeight(int u) {
+        if (outWeight[u] < 0) {
+            double sum = 0.0;
+            for (int e = graph.outStart(u); e < graph.outEnd(u); e++) {
+                sum += graph.weight(e);
+            }
+            outWeight[u] = sum;
+        }
+        return outWeight[u];
+    }
+}
@@ -0,0 +1,315 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 运行统计：各操作的耗时直方图、PageRank 迭代次数与建图后的堆占用.
+ * 节点数与边数在输出时直接从图中读取，不在加边路径上计数.
+ * <p>
+ * 用法为 {@code long t = Metrics.start(); ...; Metrics.stop(Metrics.Op.X, t);}.
+ * 关闭时（-Dtextgraph.metrics=false 或 {@link #setEnabled}）start 只读一次 volatile 字段并返回 0，
+ * stop 随即返回，不调用 System.nanoTime. 所有记录方法都可以并发调用.
+ */
+final class Metrics {
+
+    /** 被统计的操作. */
+    enum Op {
+        INGEST("ingest", "建图/追加"),
+        BRIDGE_QUERY("bridge_query", "桥接词查询"),
+        GENERATE_TEXT("generate_text", "生成新文本"),
+        SHORTEST_PATH("shortest_path", "最短路径"),
+        PAGE_RANK("pagerank", "PageRank"),
+        RANDOM_WALK("random_walk", "批量随机游走"),
+        DOT_EXPORT("dot_export", "DOT 导出");
+
+        final String key;       // 导出时使用的名字
+        final String label;     // 报告中显示的名字
+
+        Op(String key, String label) {
+            this.key = key;
+            this.label = label;
+        }
+    }
+
+    static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final String[] QUANTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+    private static volatile boolean enabled = !"false".equalsIgnoreCase(System.getProperty("textgraph.metrics"));
+
+    private static final Histogram[] LATENCY = new Histogram[Op.values().length];
+    private static final Histogram PAGE_RANK_ITERATIONS = new Histogram();
+    private static final AtomicLong LAST_PAGE_RANK_ITERATIONS = new AtomicLong(-1);
+    private static final AtomicLong HEAP_AFTER_BUILD = new AtomicLong(-1);
+
+    static {
+        for (int i = 0; i < LATENCY.length; i++) {
+            LATENCY[i] = new Histogram();
+        }
+    }
+
+    private Metrics() {
+    }
+
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /** 开始计时；统计关闭时返回 0. */
+    static long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /** 结束计时，把 start 以来的耗时记入 op 的直方图. */
+    static void stop(Op op, long start) {
+        if (start != 0L) {
+            LATENCY[op.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    /** 记录一次 PageRank 收敛所用的迭代次数. */
+    static void pageRankIterations(int iterations) {
+        if (enabled) {
+            PAGE_RANK_ITERATIONS.record(iterations);
+            LAST_PAGE_RANK_ITERATIONS.set(iterations);
+        }
+    }
+
+    /** 记录建图完成时的堆占用（不主动触发 GC，包含尚未回收的临时对象）. */
+    static void heapAfterBuild() {
+        if (enabled) {
+            Runtime runtime = Runtime.getRuntime();
+            HEAP_AFTER_BUILD.set(runtime.totalMemory() - runtime.freeMemory());
+        }
+    }
+
+    static Histogram latency(Op op) {
+        return LATENCY[op.ordinal()];
+    }
+
+    static void reset() {
+        for (Histogram h : LATENCY) {
+            h.reset();
+        }
+        PAGE_RANK_ITERATIONS.reset();
+        LAST_PAGE_RANK_ITERATIONS.set(-1);
+        HEAP_AFTER_BUILD.set(-1);
+    }
+
+    /**
+     * 供菜单显示的统计报告（耗时单位为毫秒）.
+     */
+    static String report(CsrGraph g) {
+        StringBuilder out = new StringBuilder();
+        out.append(enabled ? "运行统计（耗时单位 ms）：\n" : "运行统计（当前已关闭记录）：\n");
+        out.append(String.format("%-10s %8s %10s %10s %10s %10s %10s %10s\n",
+                "操作", "次数", "平均", "p50", "p90", "p99", "p99.9", "最大"));
+        for (Op op : Op.values()) {
+            Histogram h = latency(op);
+            long count = h.count();
+            if (count == 0) {
+                continue;
+            }
+            out.append(String.format("%-10s %8d %10.3f", op.label, count, h.sum() / 1e6 / count));
+            for (double q : QUANTILES) {
+                out.append(String.format(" %10.3f", h.percentile(q) / 1e6));
+            }
+            out.append(String.format(" %10.3f\n", h.max() / 1e6));
+        }
+        out.append(String.format("图：节点 %d 个，边 %d 条", g.nodeCount(), g.edgeCount()));
+        long heap = HEAP_AFTER_BUILD.get();
+        if (heap >= 0) {
+            out.append(String.format("，建图后堆占用 %.1f MB", heap / 1048576.0));
+        }
+        if (g.offHeapBytes() > 0) {
+            out.append(String.format("，边数据在堆外（%.1f MB）", g.offHeapBytes() / 1048576.0));
+        }
+        out.append("\n");
+        if (PAGE_RANK_ITERATIONS.count() > 0) {
+            out.append(String.format("PageRank：计算 %d 次，最近一次迭代 %d 次，迭代次数 p50 %d，最多 %d\n",
+                    PAGE_RANK_ITERATIONS.count(), LAST_PAGE_RANK_ITERATIONS.get(),
+                    PAGE_RANK_ITERATIONS.percentile(0.5), PAGE_RANK_ITERATIONS.max()));
+        }
+        return out.toString();
+    }
+
+    /**
+     * 把统计写入文件：扩展名为 .json 时写 JSON，否则写 Prometheus 文本格式.
+     */
+    static void write(Path file, CsrGraph g) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json")) {
+                writeJson(out, g);
+            } else {
+                writePrometheus(out, g);
+            }
+        }
+    }
+
+    /** Prometheus 文本格式（0.0.4），耗时以秒为单位. */
+    static void writePrometheus(Appendable out, CsrGraph g) throws IOException {
+        out.append("# HELP textgraph_operation_seconds 各操作的耗时\n");
+        out.append("# TYPE textgraph_operation_seconds summary\n");
+        for (Op op : Op.values()) {
+            Histogram h = latency(op);
+            String labels = "op=\"" + op.key + "\"";
+            for (double q : QUANTILES) {
+                out.append("textgraph_operation_seconds{").append(labels).append(",quantile=\"")
+                        .append(Double.toString(q)).append("\"} ").append(seconds(h.percentile(q))).append('\n');
+            }
+            out.append("textgraph_operation_seconds_sum{").append(labels).append("} ")
+                    .append(seconds(h.sum())).append('\n');
+            out.append("textgraph_operation_seconds_count{").append(labels).append("} ")
+                    .append(Long.toString(h.count())).append('\n');
+        }
+        gauge(out, "textgraph_graph_nodes", "图中的节点数", g.nodeCount());
+        gauge(out, "textgraph_graph_edges", "图中的边数", g.edgeCount());
+        gauge(out, "textgraph_heap_used_after_build_bytes", "最近一次建图后的堆占用", HEAP_AFTER_BUILD.get());
+        gauge(out, "textgraph_pagerank_last_iterations", "最近一次 PageRank 的迭代次数",
+                LAST_PAGE_RANK_ITERATIONS.get());
+        out.append("# HELP textgraph_pagerank_iterations PageRank 收敛所需的迭代次数\n");
+        out.append("# TYPE textgraph_pagerank_iterations summary\n");
+        for (double q : QUANTILES) {
+            out.append("textgraph_pagerank_iterations{quantile=\"").append(Double.toString(q)).append("\"} ")
+                    .append(Long.toString(PAGE_RANK_ITERATIONS.percentile(q))).append('\n');
+        }
+        out.append("textgraph_pagerank_iterations_sum ").append(Long.toString(PAGE_RANK_ITERATIONS.sum())).append('\n');
+        out.append("textgraph_pagerank_iterations_count ").append(Long.toString(PAGE_RANK_ITERATIONS.count())).append('\n');
+    }
+
+    /** JSON 格式，耗时以纳秒为单位. */
+    static void writeJson(Appendable out, CsrGraph g) throws IOException {
+        out.append("{\n  \"enabled\": ").append(Boolean.toString(enabled)).append(",\n");
+        out.append("  \"graph\": {\"nodes\": ").append(Integer.toString(g.nodeCount()))
+                .append(", \"edges\": ").append(Integer.toString(g.edgeCount()))
+                .append(", \"heapUsedAfterBuildBytes\": ").append(Long.toString(HEAP_AFTER_BUILD.get())).append("},\n");
+        out.append("  \"pagerank\": {\"lastIterations\": ").append(Long.toString(LAST_PAGE_RANK_ITERATIONS.get()))
+                .append(", \"iterations\": ");
+        json(out, PAGE_RANK_ITERATIONS);
+        out.append("},\n  \"operationsNanos\": {");
+        Op[] ops = Op.values();
+        for (int i = 0; i < ops.length; i++) {
+            out.append(i == 0 ? "\n" : ",\n").append("    \"").append(ops[i].key).append("\": ");
+            json(out, latency(ops[i]));
+        }
+        out.append("\n  }\n}\n");
+    }
+
+    private static void json(Appendable out, Histogram h) throws IOException {
+        out.append("{\"count\": ").append(Long.toString(h.count()))
+                .append(", \"sum\": ").append(Long.toString(h.sum()))
+                .append(", \"max\": ").append(Long.toString(h.max()));
+        for (int i = 0; i < QUANTILES.length; i++) {
+            out.append(", \"").append(QUANTILE_NAMES[i]).append("\": ").append(Long.toString(h.percentile(QUANTILES[i])));
+        }
+        out.append('}');
+    }
+
+    private static void gauge(Appendable out, String name, String help, long value) throws IOException {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" gauge\n");
+        out.append(name).append(' ').append(Long.toString(value)).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+
+    /**
+     * 对数-线性分桶的并发直方图：每个 2 的幂区间分成 8 个等宽的桶，
+     * 因此百分位数的相对误差不超过 12.5%（小于 8 的值精确记录）. 记录只做几次原子加法，不分配对象.
+     */
+    static final class Histogram {
+        private static final int SUB_BITS = 3;
+        private static final int SUB = 1 << SUB_BITS;
+        private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long value) {
+            if (value < 0) {
+                value = 0;
+            }
+            buckets.incrementAndGet(bucketOf(value));
+            count.incrementAndGet();
+            sum.addAndGet(value);
+            long m = max.get();
+            while (value > m && !max.compareAndSet(m, value)) {
+                m = max.get();
+            }
+        }
+
+        long count() {
+            return count.get();
+        }
+
+        long sum() {
+            return sum.get();
+        }
+
+        long max() {
+            return max.get();
+        }
+
+        /**
+         * 第 q 分位数（0 &lt; q ≤ 1）：所在桶的上界，且不超过记录到的最大值；没有记录时返回 0.
+         */
+        long percentile(double q) {
+            long total = count.get();
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(q * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), max.get());
+                }
+            }
+            return max.get();
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+            count.set(0);
+            sum.set(0);
+            max.set(0);
+        }
+
+        static int bucketOf(long value) {
+            if (value < SUB) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);    // value 位于 [2^e, 2^(e+1))
+            int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB - 1);
+            return ((exponent - SUB_BITS + 1) << SUB_BITS) + sub;
+        }
+
+        static long upperBound(int bucket) {
+            if (bucket < SUB) {
+                return bucket;
+            }
+            int exponent = (bucket >>> SUB_BITS) + SUB_BITS - 1;
+            int sub = bucket & (SUB - 1);
+            long width = 1L << (exponent - SUB_BITS);
+            long lower = (long) (SUB + sub) << (exponent - SUB_BITS);
+            return lower + width - 1;
+        }
+    }
+}
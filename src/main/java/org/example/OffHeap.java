@@ -0,0 +1,39 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * 分配堆外（直接内存）的基本类型缓冲区，按本机字节序存放.
+ * 缓冲区的内存不计入 Java 堆，也不会被 GC 扫描或复制；只有很小的缓冲区对象本身在堆上，
+ * 其被回收时释放对应的直接内存（总量受 -XX:MaxDirectMemorySize 限制）.
+ * 单个缓冲区最多 2 GB.
+ */
+final class OffHeap {
+
+    private OffHeap() {
+    }
+
+    static IntBuffer ints(int length) {
+        return allocate(length, Integer.BYTES).asIntBuffer();
+    }
+
+    static LongBuffer longs(int length) {
+        return allocate(length, Long.BYTES).asLongBuffer();
+    }
+
+    /** 堆外时分配直接内存，否则分配以数组为后备的缓冲区. */
+    static IntBuffer ints(int length, boolean offHeap) {
+        return offHeap ? ints(length) : IntBuffer.wrap(new int[length]);
+    }
+
+    private static ByteBuffer allocate(int length, int width) {
+        long bytes = (long) length * width;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("堆外缓冲区超过 2 GB 上限：" + length + " 个元素");
+        }
+        return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,298 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * 基于 CSR 入边索引的 PageRank 计算引擎.
+ * 每轮迭代先算出每个节点分给后继的份额 pr[u] / outWeight(u)，再让每个节点沿入边拉取，
+ * 全程只使用 double[] 向量；L1 残差小于 tolerance 或达到 maxIterations 时停止，
+ * 节点较多时按块在多个核上并行计算.
+ * 与 {@link TextGraphApp#calPageRankWithTF} 原有公式保持一致：每条出边分得的份额与边权重无关，
+ * 出度为 0 的节点把得分平均分给所有节点.
+ */
+final class PageRankEngine {
+
+    // 每个并行块包含的节点数，节点数少于该值时不并行
+    private static final int BLOCK = 4096;
+
+    private final double damping;
+    private final double tolerance;
+    private final int maxIterations;
+    private final boolean parallel;
+
+    PageRankEngine(double damping, double tolerance, int maxIterations, boolean parallel) {
+        this.damping = damping;
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+        this.parallel = parallel;
+    }
+
+    /**
+     * 一次计算的结果，持有计算时所用的图.
+     */
+    static final class Result {
+        final CsrGraph graph;
+        final double[] scores;
+        final int iterations;
+        final double residual;
+
+        Result(CsrGraph graph, double[] scores, int iterations, double residual) {
+            this.graph = graph;
+            this.scores = scores;
+            this.iterations = iterations;
+            this.residual = residual;
+        }
+
+        /** 单词的 PageRank 值，不在图中时返回 0. */
+        double score(String word) {
+            int id = graph.id(word.toLowerCase());
+            return id >= 0 ? scores[id] : 0.0;
+        }
+    }
+
+    /**
+     * 计算 PageRank。tf[u] 为节点 u 在语料中的出现次数，用于初始化：
+     * 出现过的节点初值为 tf[u] / totalCount，其余节点平分剩下的概率（此时为 0）；
+     * 所有节点都没有词频时退化为均匀初始化.
+     */
+    Result compute(CsrGraph g, int[] tf) {
+        return iterate(g, initialScores(g, u -> tf[u]));
+    }
+
+    /**
+     * 计算 PageRank，直接以冻结时记录在图中的词频初始化.
+     */
+    Result compute(CsrGraph g) {
+        return iterate(g, initialScores(g, g::termCount));
+    }
+
+    /**
+     * 图在 previous 的基础上追加了节点或边之后，以上一次的得分为初始值继续迭代（热启动）.
+     * <p>
+     * 不动点可以写成 x = c·h，其中 h = (I - dM)^{-1}·1 只取决于图的结构，
+     * 常数 c = (1-d)/N + d·(出度为 0 的节点得分之和)/N 却随节点数和悬挂节点整体变化。
+     * 如果直接沿用旧得分，c 的变化会成为遍布全图的误差，在衰减很慢的环路上迭代次数反而更多；
+     * 因此先把旧得分还原为 h（新节点取 1），再按新图重新求出 c，误差只留在变化的边附近.
+     * delta 非空时先在变化附近局部推送修正 h，之后通常只需几轮全图迭代确认收敛.
+     */
+    Result refresh(Result previous, CsrGraph g, GraphDelta delta) {
+        int n = g.nodeCount();
+        CsrGraph before = previous.graph;
+        int old = Math.min(before.nodeCount(), n);
+        double oldDangling = 0.0;
+        for (int u = 0; u < before.nodeCount(); u++) {
+            if (before.outDegree(u) == 0) {
+                oldDangling += previous.scores[u];
+            }
+        }
+        double oldBase = (1 - damping) / before.nodeCount() + damping * oldDangling / before.nodeCount();
+
+        double[] h = new double[n];
+        for (int u = 0; u < n; u++) {
+            h[u] = u < old ? previous.scores[u] / oldBase : 1.0;
+        }
+        if (delta != null) {
+            pushChanges(g, h, delta, before.nodeCount(), tolerance * 100); // 剩余的少量误差交给迭代收尾
+        }
+
+        double danglingH = 0.0;
+        for (int u = 0; u < n; u++) {
+            if (g.outDegree(u) == 0) {
+                danglingH += h[u];
+            }
+        }
+        double base = (1 - damping) / n / (1 - damping * danglingH / n);
+        for (int u = 0; u < n; u++) {
+            h[u] *= base;
+        }
+        return iterate(g, h);
+    }
+
+    /**
+     * 在变化的边附近修正 h：h 的残差 r = 1 + d·M·h - h 只在新节点和出边变化的节点的后继上非零，
+     * 从这些节点开始做带符号的局部推送（每次把 r_u 计入 h_u，并按 d·r_u / outWeight(u) 分给后继），
+     * 直到所有残差的绝对值都不超过 epsilon。访问的节点数只取决于变化所波及的范围.
+     */
+    private void pushChanges(CsrGraph g, double[] h, GraphDelta delta, int oldNodes, double epsilon) {
+        int n = g.nodeCount();
+        double[] outWeight = new double[n];
+        for (int u = 0; u < n; u++) {
+            for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+                outWeight[u] += g.weight(e);
+            }
+        }
+
+        // 受影响的节点：新节点，以及出边变化的节点的全部后继
+        boolean[] seed = new boolean[n];
+        for (int u = oldNodes; u < n; u++) {
+            seed[u] = true;
+        }
+        delta.forEachEdge((from, to, weight) -> {
+            for (int e = g.outStart(from); e < g.outEnd(from); e++) {
+                seed[g.target(e)] = true;
+            }
+        });
+
+        double[] residual = new double[n];
+        boolean[] queued = new boolean[n];
+        int[] queue = new int[64];      // 循环队列（先进先出）
+        int head = 0;
+        int size = 0;
+        for (int v = 0; v < n; v++) {
+            if (!seed[v]) {
+                continue;
+            }
+            double sum = 0.0;
+            for (int i = g.inStart(v); i < g.inEnd(v); i++) {
+                int u = g.source(i);
+                sum += h[u] / outWeight[u];
+            }
+            residual[v] = 1 + damping * sum - h[v];
+            if (Math.abs(residual[v]) > epsilon) {
+                if (size == queue.length) {
+                    queue = grow(queue, head, size);
+                    head = 0;
+                }
+                queue[(head + size++) & (queue.length - 1)] = v;
+                queued[v] = true;
+            }
+        }
+
+        while (size > 0) {
+            int u = queue[head];
+            head = (head + 1) & (queue.length - 1);
+            size--;
+            queued[u] = false;
+            double ru = residual[u];
+            residual[u] = 0.0;
+            h[u] += ru;
+            if (outWeight[u] == 0) {
+                continue;
+            }
+            double share = damping * ru / outWeight[u];
+            for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+                int v = g.target(e);
+                residual[v] += share;
+                if (Math.abs(residual[v]) > epsilon && !queued[v]) {
+                    if (size == queue.length) {
+                        queue = grow(queue, head, size);
+                        head = 0;
+                    }
+                    queue[(head + size++) & (queue.length - 1)] = v;
+                    queued[v] = true;
+                }
+            }
+        }
+    }
+
+    private static int[] grow(int[] queue, int head, int size) {
+        int[] grown = new int[queue.length * 2];
+        for (int i = 0; i < size; i++) {
+            grown[i] = queue[(head + i) & (queue.length - 1)];
+        }
+        return grown;
+    }
+
+    /**
+     * 判断 g 是否只是在 old 之上追加了节点或边（旧节点的编号与单词不变）.
+     */
+    static boolean extendsGraph(CsrGraph old, CsrGraph g) {
+        if (old.nodeCount() > g.nodeCount()) {
+            return false;
+        }
+        for (int u = 0; u < old.nodeCount(); u++) {
+            if (!old.word(u).equals(g.word(u))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 从给定的初始向量开始迭代（长度须等于节点数）.
+     */
+    Result iterate(CsrGraph g, double[] initial) {
+        int n = g.nodeCount();
+        if (n == 0) {
+            return new Result(g, new double[0], 0, 0.0);
+        }
+
+        // 出边权重之和只与图有关，预先算好
+        double[] outWeight = new double[n];
+        for (int u = 0; u < n; u++) {
+            for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+                outWeight[u] += g.weight(e);
+            }
+        }
+
+        double[] pr = initial.clone();
+        double[] next = new double[n];
+        double[] share = new double[n];
+        int blocks = (n + BLOCK - 1) / BLOCK;
+        double[] blockResidual = new double[blocks];
+        int iter = 0;
+        double residual = Double.POSITIVE_INFINITY;
+
+        while (iter < maxIterations && residual > tolerance) {
+            double danglingSum = 0.0;
+            for (int u = 0; u < n; u++) {
+                if (outWeight[u] == 0) {
+                    danglingSum += pr[u];
+                    share[u] = 0.0;
+                } else {
+                    share[u] = pr[u] / outWeight[u];
+                }
+            }
+            double base = (1 - damping) / n + damping * danglingSum / n;
+
+            double[] current = pr;
+            double[] updated = next;
+            IntStream range = IntStream.range(0, blocks);
+            (parallel && blocks > 1 ? range.parallel() : range).forEach(b -> {
+                double diff = 0.0;
+                for (int v = b * BLOCK, end = Math.min(n, v + BLOCK); v < end; v++) {
+                    double sum = 0.0;
+                    for (int i = g.inStart(v); i < g.inEnd(v); i++) {
+                        sum += share[g.source(i)];
+                    }
+                    updated[v] = base + damping * sum;
+                    diff += Math.abs(updated[v] - current[v]);
+                }
+                blockResidual[b] = diff;
+            });
+
+            // 按块的顺序求和，保证结果与线程数无关
+            residual = 0.0;
+            for (double d : blockResidual) {
+                residual += d;
+            }
+            next = pr;
+            pr = updated;
+            iter++;
+        }
+        return new Result(g, pr, iter, residual);
+    }
+
+    /**
+     * 按词频构造初始向量.
+     */
+    static double[] initialScores(CsrGraph g, IntUnaryOperator tf) {
+        int n = g.nodeCount();
+        double[] pr = new double[n];
+        double totalCount = 0.0;
+        for (int u = 0; u < n; u++) {
+            totalCount += tf.applyAsInt(u);
+        }
+        if (totalCount == 0) {
+            Arrays.fill(pr, 1.0 / n);
+            return pr;
+        }
+        // 词频已占满全部概率，未出现的节点平分的剩余部分为 0
+        for (int u = 0; u < n; u++) {
+            pr[u] = tf.applyAsInt(u) / totalCount;
+        }
+        return pr;
+    }
+}
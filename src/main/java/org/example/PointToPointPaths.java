@@ -0,0 +1,561 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 两点之间的全部最短路径（按边权重）：双向 Dijkstra 提前结束搜索，
+ * 动态规划统计并列最短路径的条数，迭代器按需逐条生成路径.
+ * <p>
+ * 正向从 s 沿出边、反向从 t 沿入边交替扩展，两侧堆顶之和严格大于已知最短距离 μ 时停止。
+ * 此时任意一条最短路径上的节点要么已被正向确定（集合 F），要么已被反向确定（集合 B），
+ * 且 F 中的节点构成路径的前缀。于是每条最短路径恰好对应一条“交接边” u -> v
+ * （u 为路径上最后一个 F 节点，v 不在 F 中而在 B 中），路径条数为
+ * Σ σF(u) · σB(v)，其中 σF、σB 分别是 s 到 u、v 到 t 的最短路径条数；t 已在 F 中时即为 σF(t).
+ */
+final class PointToPointPaths {
+
+    private static final long INF = Long.MAX_VALUE / 4;
+
+    // 每个线程一份搜索用的工作数组，查询之间复用，只在图变大时重新分配
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private PointToPointPaths() {
+    }
+
+    /**
+     * 一次查询的结果. 距离、路径条数随时可读；逐条枚举路径要用到发起查询的线程上的工作数组，
+     * 只能在该线程的下一次查询之前进行，之后枚举会抛出 IllegalStateException.
+     */
+    static final class Result {
+        final CsrGraph graph;
+        final int source;
+        final int target;
+        final long distance;        // 不可达时为 -1
+        final int settled;          // 两侧共确定的节点数，反映搜索范围
+
+        private final Scratch scratch;
+        private final int epoch;
+        private final int fCount;
+        private final long pathCount;
+
+        private Result(CsrGraph graph, int source, int target, long distance, int settled, Scratch scratch,
+                       int fCount, long pathCount) {
+            this.graph = graph;
+            this.source = source;
+            this.target = target;
+            this.distance = distance;
+            this.settled = settled;
+            this.scratch = scratch;
+            this.epoch = scratch.epoch;
+            this.fCount = fCount;
+            this.pathCount = pathCount;
+        }
+
+        boolean reachable() {
+            return distance >= 0;
+        }
+
+        /** 并列最短路径的总条数，超过 Long.MAX_VALUE 时返回 Long.MAX_VALUE. */
+        long pathCount() {
+            return pathCount;
+        }
+
+        /**
+         * 按需逐条生成最短路径（节点编号数组，从 s 到 t），最多生成 limit 条.
+         */
+        Iterator<int[]> paths(long limit) {
+            return reachable() ? new PathIterator(this, limit) : new PathIterator(null, 0);
+        }
+
+        private Scratch scratch() {
+            if (scratch.epoch != epoch) {
+                throw new IllegalStateException("查询结果已失效：同一线程上已开始新的查询");
+            }
+            return scratch;
+        }
+    }
+
+    /**
+     * 查询 s 到 t 的最短路径.
+     * 工作数组按版本戳判断有效性，不必逐次清零，提前结束的查询只访问它实际确定的节点.
+     */
+    static Result search(CsrGraph g, int s, int t) {
+        Scratch w = SCRATCH.get();
+        w.begin(g.nodeCount());
+        w.setF(s, 0);
+        w.setB(t, 0);
+        w.forward.push(0, s);
+        w.backward.push(0, t);
+        long mu = s == t ? 0 : INF;
+
+        while (true) {
+            long minF = w.topF();
+            long minB = w.topB();
+            if (minF == INF || minB == INF || minF + minB > mu) {
+                break;
+            }
+            if (minF <= minB) {
+                int u = w.forward.pop();
+                w.settleF(u);
+                for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+                    int v = g.target(e);
+                    long d = w.df(u) + g.weight(e);
+                    if (d < w.df(v) && !w.inF(v)) {
+                        w.setF(v, d);
+                        w.forward.push(d, v);
+                    }
+                    mu = Math.min(mu, d + w.db(v));
+                }
+            } else {
+                int v = w.backward.pop();
+                w.settleB(v);
+                for (int i = g.inStart(v); i < g.inEnd(v); i++) {
+                    int u = g.source(i);
+                    long d = w.db(v) + g.inWeight(i);
+                    if (d < w.db(u) && !w.inB(u)) {
+                        w.setB(u, d);
+                        w.backward.push(d, u);
+                    }
+                    mu = Math.min(mu, d + w.df(u));
+                }
+            }
+        }
+
+        int fCount = w.fCount;
+        int bCount = w.bCount;
+        int settled = fCount + bCount;
+        if (mu >= INF) {
+            return new Result(g, s, t, -1, settled, w, fCount, 0);
+        }
+
+        // σF：按确定顺序累加紧边前驱的路径条数（前驱的距离更小，必然先被确定）
+        w.sigmaF[s] = 1;
+        for (int k = 1; k < fCount; k++) {
+            int v = w.fOrder[k];
+            long sigma = 0;
+            for (int i = g.inStart(v); i < g.inEnd(v); i++) {
+                int u = g.source(i);
+                if (w.inF(u) && w.df(u) + g.inWeight(i) == w.df(v)) {
+                    sigma = saturatedAdd(sigma, w.sigmaF[u]);
+                }
+            }
+            w.sigmaF[v] = sigma;
+        }
+
+        long count;
+        if (w.inF(t)) {
+            count = w.sigmaF[t];
+        } else {
+            // σB：按反向确定顺序累加紧边后继的路径条数
+            w.sigmaB[t] = 1;
+            for (int k = 1; k < bCount; k++) {
+                int u = w.bOrder[k];
+                long sigma = 0;
+                for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+                    int v = g.target(e);
+                    if (w.inB(v) && w.db(v) + g.weight(e) == w.db(u)) {
+                        sigma = saturatedAdd(sigma, w.sigmaB[v]);
+                    }
+                }
+                w.sigmaB[u] = sigma;
+            }
+            count = 0;
+            for (int k = 0; k < fCount; k++) {
+                int u = w.fOrder[k];
+                for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+                    int v = g.target(e);
+                    if (!w.inF(v) && w.inB(v) && w.df(u) + g.weight(e) + w.db(v) == mu) {
+                        count = saturatedAdd(count, saturatedMultiply(w.sigmaF[u], w.sigmaB[v]));
+                    }
+                }
+            }
+        }
+        return new Result(g, s, t, mu, settled, w, fCount, count);
+    }
+
+    private static int[] append(int[] array, int size, int value) {
+        if (size == array.length) {
+            array = Arrays.copyOf(array, size * 2);
+        }
+        array[size] = value;
+        return array;
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    private static long saturatedMultiply(long a, long b) {
+        return a != 0 && b > Long.MAX_VALUE / a ? Long.MAX_VALUE : a * b;
+    }
+
+    /**
+     * 沿紧边深度优先枚举从 root 到 goal 的全部路径，每次调用 next() 前进到下一条.
+     * backward 为 true 时沿 F 中的紧边前驱走（root 为交接边起点，goal 为 s），
+     * 否则沿 B 中的紧边后继走（root 为交接边终点，goal 为 t）.
+     */
+    private static final class Walker {
+        private final Result r;
+        private final boolean backward;
+        private final int goal;
+        private int[] nodes = new int[16];
+        private int[] cursor = new int[16];
+        private int depth = -1;
+        private boolean started;
+        private int root;
+
+        Walker(Result r, boolean backward) {
+            this.r = r;
+            this.backward = backward;
+            this.goal = backward ? r.source : r.target;
+        }
+
+        void reset(int root) {
+            this.root = root;
+            started = false;
+            depth = -1;
+        }
+
+        int length() {
+            return depth + 1;
+        }
+
+        int node(int i) {
+            return nodes[i];
+        }
+
+        boolean next() {
+            if (!started) {
+                started = true;
+                push(root);
+                if (root == goal) {
+                    return true;
+                }
+            } else {
+                depth--;   // 弹出上一条路径的终点
+            }
+            CsrGraph g = r.graph;
+            Scratch w = r.scratch();
+            while (depth >= 0) {
+                int u = nodes[depth];
+                int end = backward ? g.inEnd(u) : g.outEnd(u);
+                int next = -1;
+                while (cursor[depth] < end && next < 0) {
+                    int i = cursor[depth]++;
+                    if (backward) {
+                        int p = g.source(i);
+                        if (w.inF(p) && w.df(p) + g.inWeight(i) == w.df(u)) {
+                            next = p;
+                        }
+                    } else {
+                        int q = g.target(i);
+                        if (w.inB(q) && w.db(q) + g.weight(i) == w.db(u)) {
+                            next = q;
+                        }
+                    }
+                }
+                if (next < 0) {
+                    depth--;
+                    continue;
+                }
+                push(next);
+                if (next == goal) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void push(int node) {
+            depth++;
+            if (depth == nodes.length) {
+                nodes = Arrays.copyOf(nodes, depth * 2);
+                cursor = Arrays.copyOf(cursor, depth * 2);
+            }
+            nodes[depth] = node;
+            cursor[depth] = backward ? r.graph.inStart(node) : r.graph.outStart(node);
+        }
+    }
+
+    /**
+     * 依次枚举交接边，对每条交接边组合前缀（s -> u）与后缀（v -> t）.
+     */
+    private static final class PathIterator implements Iterator<int[]> {
+        private final Result r;
+        private final Walker prefix;
+        private final Walker suffix;
+        private long remaining;
+        private int k = -1;         // 当前交接边起点在 fOrder 中的下标
+        private int edge;           // 下一条待检查的出边
+        private boolean inPrefix;   // 当前前缀是否有效
+        private int suffixRoot;     // 当前交接边的终点
+        private int[] pending;
+
+        PathIterator(Result r, long limit) {
+            this.r = r;
+            this.remaining = limit;
+            this.prefix = r == null ? null : new Walker(r, true);
+            this.suffix = r == null ? null : new Walker(r, false);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (pending == null && remaining > 0) {
+                pending = advance();
+            }
+            return pending != null;
+        }
+
+        @Override
+        public int[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int[] path = pending;
+            pending = null;
+            remaining--;
+            return path;
+        }
+
+        private int[] advance() {
+            if (r.scratch().inF(r.target)) {
+                // 所有最短路径都在 F 内，只需枚举 t 的前缀
+                if (k < 0) {
+                    k = 0;
+                    prefix.reset(r.target);
+                }
+                return prefix.next() ? build(0) : null;
+            }
+            while (true) {
+                if (inPrefix && suffix.next()) {
+                    return build(suffix.length());
+                }
+                if (inPrefix && prefix.next()) {
+                    suffix.reset(suffixRoot);
+                    continue;
+                }
+                inPrefix = false;
+                if (!nextCrossing()) {
+                    return null;
+                }
+                prefix.reset(r.scratch().fOrder[k]);
+                prefix.next();
+                suffix.reset(suffixRoot);
+                inPrefix = true;
+            }
+        }
+
+        // 找到下一条交接边 u -> v，成功时设置 k 和 suffixRoot
+        private boolean nextCrossing() {
+            CsrGraph g = r.graph;
+            Scratch w = r.scratch();
+            if (k < 0) {
+                k = 0;
+                edge = r.fCount > 0 ? g.outStart(w.fOrder[0]) : 0;
+            }
+            while (k < r.fCount) {
+                int u = w.fOrder[k];
+                while (edge < g.outEnd(u)) {
+                    int e = edge++;
+                    int v = g.target(e);
+                    if (!w.inF(v) && w.inB(v) && w.df(u) + g.weight(e) + w.db(v) == r.distance) {
+                        suffixRoot = v;
+                        return true;
+                    }
+                }
+                if (++k < r.fCount) {
+                    edge = g.outStart(w.fOrder[k]);
+                }
+            }
+            return false;
+        }
+
+        // 前缀是从 u 倒着走到 s 的，翻转后接上后缀
+        private int[] build(int suffixLength) {
+            int prefixLength = prefix.length();
+            int[] path = new int[prefixLength + suffixLength];
+            for (int i = 0; i < prefixLength; i++) {
+                path[i] = prefix.node(prefixLength - 1 - i);
+            }
+            for (int i = 0; i < suffixLength; i++) {
+                path[prefixLength + i] = suffix.node(i);
+            }
+            return path;
+        }
+    }
+
+    /**
+     * 一个线程的搜索工作数组. 按节点的数组带版本戳：戳等于当前 epoch 时元素才有效，
+     * 因此开始新查询只需把 epoch 加一，不必清零.
+     */
+    private static final class Scratch {
+        int epoch;
+        private int[] seenF = new int[0];   // 戳有效时 df 已设置
+        private int[] seenB = new int[0];
+        private int[] doneF = new int[0];   // 戳有效时已被正向确定（属于 F）
+        private int[] doneB = new int[0];
+        private long[] df = new long[0];    // 正向距离（仅对 F 中的节点精确）
+        private long[] db = new long[0];    // 反向距离（仅对 B 中的节点精确）
+        long[] sigmaF = new long[0];        // 只对 F 中的节点有效
+        long[] sigmaB = new long[0];        // 只对 B 中的节点有效
+        int[] fOrder = new int[16];         // F 中的节点，按确定顺序
+        int[] bOrder = new int[16];
+        int fCount;
+        int bCount;
+        final Heap forward = new Heap();
+        final Heap backward = new Heap();
+
+        void begin(int n) {
+            if (seenF.length < n) {
+                seenF = new int[n];
+                seenB = new int[n];
+                doneF = new int[n];
+                doneB = new int[n];
+                df = new long[n];
+                db = new long[n];
+                sigmaF = new long[n];
+                sigmaB = new long[n];
+            }
+            if (++epoch == 0) {     // 版本戳回绕：清零后从 1 重新开始
+                Arrays.fill(seenF, 0);
+                Arrays.fill(seenB, 0);
+                Arrays.fill(doneF, 0);
+                Arrays.fill(doneB, 0);
+                epoch = 1;
+            }
+            fCount = 0;
+            bCount = 0;
+            forward.clear();
+            backward.clear();
+        }
+
+        long df(int v) {
+            return seenF[v] == epoch ? df[v] : INF;
+        }
+
+        long db(int v) {
+            return seenB[v] == epoch ? db[v] : INF;
+        }
+
+        void setF(int v, long d) {
+            seenF[v] = epoch;
+            df[v] = d;
+        }
+
+        void setB(int v, long d) {
+            seenB[v] = epoch;
+            db[v] = d;
+        }
+
+        boolean inF(int v) {
+            return doneF[v] == epoch;
+        }
+
+        boolean inB(int v) {
+            return doneB[v] == epoch;
+        }
+
+        void settleF(int v) {
+            doneF[v] = epoch;
+            fOrder = append(fOrder, fCount++, v);
+        }
+
+        void settleB(int v) {
+            doneB[v] = epoch;
+            bOrder = append(bOrder, bCount++, v);
+        }
+
+        // 弹出过期元素后返回堆顶距离，堆空时返回 INF
+        long topF() {
+            return top(forward, seenF, df, doneF);
+        }
+
+        long topB() {
+            return top(backward, seenB, db, doneB);
+        }
+
+        private long top(Heap heap, int[] seen, long[] dist, int[] done) {
+            while (!heap.isEmpty()) {
+                int node = heap.peekNode();
+                if (done[node] != epoch && seen[node] == epoch && heap.peekPriority() == dist[node]) {
+                    return dist[node];
+                }
+                heap.pop();
+            }
+            return INF;
+        }
+    }
+
+    /**
+     * 最小二叉堆：优先级为 long 距离，与节点编号分别存放，距离不受 int 范围限制.
+     */
+    private static final class Heap {
+        private long[] priorities = new long[16];
+        private int[] nodes = new int[16];
+        private int size;
+
+        void push(long priority, int node) {
+            if (size == nodes.length) {
+                priorities = Arrays.copyOf(priorities, size * 2);
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (priorities[parent] <= priority) {
+                    break;
+                }
+                priorities[i] = priorities[parent];
+                nodes[i] = nodes[parent];
+                i = parent;
+            }
+            priorities[i] = priority;
+            nodes[i] = node;
+        }
+
+        long peekPriority() {
+            return priorities[0];
+        }
+
+        int peekNode() {
+            return nodes[0];
+        }
+
+        /** 弹出堆顶，返回其节点编号. */
+        int pop() {
+            int top = nodes[0];
+            long lastPriority = priorities[--size];
+            int lastNode = nodes[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && priorities[child + 1] < priorities[child]) {
+                    child++;
+                }
+                if (lastPriority <= priorities[child]) {
+                    break;
+                }
+                priorities[i] = priorities[child];
+                nodes[i] = nodes[child];
+                i = child;
+            }
+            priorities[i] = lastPriority;
+            nodes[i] = lastNode;
+            return top;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
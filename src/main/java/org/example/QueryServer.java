@@ -0,0 +1,366 @@
+package org.example;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 只监听本机回环地址的 HTTP 查询服务：图只建一次，之后并发响应各个查询.
+ * <p>
+ * 每个请求开始时取一次 {@link Graph#snapshot()}，整个请求都在这份不可变快照上完成，读取时不加锁.
+ * 请求在固定大小的线程池中执行；同时受理的请求（执行中 + 排队中）不超过 threads + queue 个，
+ * 超出时由接收线程直接回复 503 并带上 Retry-After，不再排队. 已受理但排队超过 maxWait 的请求
+ * 开始执行时同样回复 503，使排队时间有上限，繁忙时的延迟分布保持稳定.
+ * <p>
+ * 接口（均为 GET，参数为 URL 查询串，响应为 UTF-8 纯文本）：
+ * <pre>
+ *   /bridge?word1=&amp;word2=            桥接词
+ *   /generate?text=                    插入桥接词生成新文本
+ *   /path?word1=&amp;word2=[&amp;limit=]     两点间全部最短路径
+ *   /paths?word=[&amp;limit=][&amp;reachable=true]  单源最短路径（流式输出）
+ *   /pagerank?word=                    PageRank
+ *   /walk?[start=][&amp;seed=][&amp;steps=][&amp;uniform=true]  一次随机游走
+ *   /stats                             运行统计（Prometheus 文本格式）
+ *   /health                            存活检查
+ * </pre>
+ */
+final class QueryServer {
+
+    /** 一个查询接口：在快照 g 上处理请求并写出响应. */
+    interface Endpoint {
+        void handle(HttpExchange exchange, Map<String, String> params, CsrGraph g) throws IOException;
+    }
+
+    /** 请求参数错误，回复 400；其他异常一律记录后回复 500. */
+    static final class BadRequest extends RuntimeException {
+        BadRequest(String message) {
+            super(message);
+        }
+    }
+
+    static final int DEFAULT_WALK_STEPS = 1000;
+
+    // 接收线程拒绝请求时置位，处理器据此直接回复 503
+    private static final ThreadLocal<Boolean> OVERLOADED = new ThreadLocal<>();
+    // 请求被受理（进入队列）的时刻
+    private static final ThreadLocal<Long> ACCEPTED = new ThreadLocal<>();
+
+    private final Graph graph;
+    private final HttpServer server;
+    private final ThreadPoolExecutor workers;
+    private final Semaphore admission;
+    private final long maxWaitNanos;
+    private final LongAdder rejected = new LongAdder();    // 超出受理上限被拒绝
+    private final LongAdder shed = new LongAdder();        // 排队超时被放弃
+    private final LongAdder served = new LongAdder();
+    private volatile RandomWalkEngine weightedWalks;
+    private volatile RandomWalkEngine uniformWalks;
+    private volatile PageRankEngine.Result pageRanks;
+
+    /**
+     * @param port    端口，0 表示由系统分配
+     * @param threads 工作线程数
+     * @param queue   工作线程全忙时最多排队的请求数
+     * @param maxWait 请求最长排队时间（毫秒）
+     */
+    QueryServer(Graph graph, int port, int threads, int queue, long maxWait) throws IOException {
+        if (threads < 1 || queue < 0 || maxWait < 0) {
+            throw new IllegalArgumentException("线程数必须为正数，队列长度与等待时间不能为负数");
+        }
+        this.graph = graph;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWait);
+        this.admission = new Semaphore(threads + queue);
+        AtomicInteger index = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                task -> {
+                    Thread thread = new Thread(task, "query-" + index.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), threads + queue);
+        server.setExecutor(this::dispatch);
+
+        addEndpoint("/bridge", Metrics.Op.BRIDGE_QUERY, (exchange, params, g) ->
+                send(exchange, 200, TextGraphApp.bridgeWordsMessage(g,
+                        require(params, "word1").toLowerCase(), require(params, "word2").toLowerCase())));
+        addEndpoint("/generate", Metrics.Op.GENERATE_TEXT, (exchange, params, g) ->
+                send(exchange, 200, TextGraphApp.generateNewText(g, require(params, "text"), new SplittableRandom())));
+        addEndpoint("/path", Metrics.Op.SHORTEST_PATH, (exchange, params, g) ->
+                send(exchange, 200, TextGraphApp.shortestPathsMessage(g, require(params, "word1"),
+                        require(params, "word2"), limit(params, TextGraphApp.MAX_LISTED_PATHS))));
+        addEndpoint("/paths", Metrics.Op.SHORTEST_PATH, this::singleSource);
+        addEndpoint("/pagerank", Metrics.Op.PAGE_RANK, this::pageRank);
+        addEndpoint("/walk", null, this::walk);
+        addEndpoint("/stats", null, (exchange, params, g) -> {
+            StringBuilder text = new StringBuilder();
+            Metrics.writePrometheus(text, g);
+            appendServerMetrics(text);
+            send(exchange, 200, text.toString());
+        });
+        addEndpoint("/health", null, (exchange, params, g) -> send(exchange, 200, "ok"));
+    }
+
+    void start() {
+        server.start();
+    }
+
+    /** 停止接收新请求，最多等待 delay 秒让进行中的请求完成. */
+    void stop(int delay) {
+        server.stop(delay);
+        workers.shutdown();
+    }
+
+    InetSocketAddress address() {
+        return server.getAddress();
+    }
+
+    long rejected() {
+        return rejected.sum();
+    }
+
+    long shed() {
+        return shed.sum();
+    }
+
+    /**
+     * 注册接口. op 不为 null 时，处理耗时记入对应的统计.
+     */
+    void addEndpoint(String path, Metrics.Op op, Endpoint endpoint) {
+        server.createContext(path, exchange -> {
+            try {
+                if (OVERLOADED.get() != null) {
+                    busy(exchange);
+                    return;
+                }
+                Long accepted = ACCEPTED.get();
+                if (accepted != null && System.nanoTime() - accepted > maxWaitNanos) {
+                    shed.increment();
+                    busy(exchange);
+                    return;
+                }
+                if (!"GET".equals(exchange.getRequestMethod())) {
+                    exchange.getResponseHeaders().set("Allow", "GET");
+                    send(exchange, 405, "只支持 GET 请求");
+                    return;
+                }
+                if (!exchange.getRequestURI().getPath().equals(path)) {
+                    send(exchange, 404, "未知的接口：" + exchange.getRequestURI().getPath());
+                    return;
+                }
+                long start = op == null ? 0L : Metrics.start();
+                endpoint.handle(exchange, parseQuery(exchange.getRequestURI().getRawQuery()), graph.snapshot());
+                if (op != null) {
+                    Metrics.stop(op, start);
+                }
+                served.increment();
+            } catch (BadRequest e) {
+                send(exchange, 400, e.getMessage());
+            } catch (RuntimeException e) {
+                log(exchange, e);
+                if (exchange.getResponseCode() == -1) {     // 响应头已发出时无法再改状态码，只能关闭
+                    send(exchange, 500, "内部错误");
+                }
+            } finally {
+                exchange.close();
+            }
+        });
+    }
+
+    // HttpServer 的执行器：能受理时交给工作线程，否则在接收线程上直接回复 503
+    private void dispatch(Runnable exchange) {
+        if (!admission.tryAcquire()) {
+            rejected.increment();
+            OVERLOADED.set(Boolean.TRUE);
+            try {
+                exchange.run();
+            } finally {
+                OVERLOADED.remove();
+            }
+            return;
+        }
+        long accepted = System.nanoTime();
+        try {
+            workers.execute(() -> {
+                ACCEPTED.set(accepted);
+                try {
+                    exchange.run();
+                } finally {
+                    ACCEPTED.remove();
+                    admission.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            admission.release();    // 服务器正在关闭
+        }
+    }
+
+    private void singleSource(HttpExchange exchange, Map<String, String> params, CsrGraph g) throws IOException {
+        String word = require(params, "word").toLowerCase();
+        int source = g.id(word);
+        if (source < 0) {
+            send(exchange, 404, "No \"" + word + "\" in the graph!");
+            return;
+        }
+        long limit = limit(params, Long.MAX_VALUE);
+        boolean reachableOnly = Boolean.parseBoolean(params.get("reachable"));
+        ShortestPaths.Tree tree = TextGraphApp.PATH_CACHE.get(g, source);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);   // 分块传输，边计算边输出
+        try {
+            Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+            ShortestPathWriter.write(tree, out, reachableOnly, limit);
+            out.flush();
+        } catch (RuntimeException e) {
+            log(exchange, e);   // 状态码已发出，记录后由调用方关闭连接
+        }
+    }
+
+    private void pageRank(HttpExchange exchange, Map<String, String> params, CsrGraph g) throws IOException {
+        String word = require(params, "word").toLowerCase();
+        if (g.id(word) < 0) {
+            send(exchange, 404, "No \"" + word + "\" in the graph!");
+            return;
+        }
+        PageRankEngine.Result result = pageRanks;
+        if (result == null || result.graph != g) {
+            result = TextGraphApp.PAGE_RANK.compute(g);     // 并发请求可能各算一份，结果相同，保留最后一份
+            Metrics.pageRankIterations(result.iterations);
+            pageRanks = result;
+        }
+        send(exchange, 200, String.format("PageRank(%s) = %.8f", word, result.score(word)));
+    }
+
+    private void walk(HttpExchange exchange, Map<String, String> params, CsrGraph g) throws IOException {
+        if (g.nodeCount() == 0) {
+            send(exchange, 404, "图为空！");
+            return;
+        }
+        boolean uniform = Boolean.parseBoolean(params.get("uniform"));
+        RandomWalkEngine engine = uniform ? uniformWalks : weightedWalks;
+        if (engine == null || engine.graph() != g) {
+            engine = new RandomWalkEngine(g, !uniform);     // 并发请求可能各建一份，结果相同，保留最后一份
+            if (uniform) {
+                uniformWalks = engine;
+            } else {
+                weightedWalks = engine;
+            }
+        }
+        SplittableRandom random = params.containsKey("seed")
+                ? new SplittableRandom(number(params, "seed", 0)) : new SplittableRandom();
+        int start;
+        if (params.containsKey("start")) {
+            start = g.id(params.get("start").toLowerCase());
+            if (start < 0) {
+                send(exchange, 404, "No \"" + params.get("start") + "\" in the graph!");
+                return;
+            }
+        } else {
+            start = random.nextInt(g.nodeCount());
+        }
+        int steps = (int) Math.max(0, Math.min(Integer.MAX_VALUE, number(params, "steps", DEFAULT_WALK_STEPS)));
+        StringBuilder text = new StringBuilder();
+        long begin = Metrics.start();
+        engine.walk(start, random, new RandomWalkEngine.VisitedEdges(), steps, text);
+        Metrics.stop(Metrics.Op.RANDOM_WALK, begin);
+        send(exchange, 200, text.toString());
+    }
+
+    private void appendServerMetrics(StringBuilder text) {
+        text.append("# HELP textgraph_server_requests_total 已处理的请求数\n");
+        text.append("# TYPE textgraph_server_requests_total counter\n");
+        text.append("textgraph_server_requests_total ").append(served.sum()).append('\n');
+        text.append("# HELP textgraph_server_rejected_total 超出受理上限而被拒绝的请求数\n");
+        text.append("# TYPE textgraph_server_rejected_total counter\n");
+        text.append("textgraph_server_rejected_total ").append(rejected.sum()).append('\n');
+        text.append("# HELP textgraph_server_shed_total 排队超时而被放弃的请求数\n");
+        text.append("# TYPE textgraph_server_shed_total counter\n");
+        text.append("textgraph_server_shed_total ").append(shed.sum()).append('\n');
+        text.append("# HELP textgraph_server_queue_length 正在排队的请求数\n");
+        text.append("# TYPE textgraph_server_queue_length gauge\n");
+        text.append("textgraph_server_queue_length ").append(workers.getQueue().size()).append('\n');
+    }
+
+    private static void log(HttpExchange exchange, RuntimeException e) {
+        System.err.println("处理请求失败：" + exchange.getRequestURI());
+        e.printStackTrace();
+    }
+
+    private static void busy(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        send(exchange, 503, "服务器繁忙，请稍后重试");
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            try {
+                params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequest("查询串编码错误：" + pair);
+            }
+        }
+        return params;
+    }
+
+    private static String require(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new BadRequest("缺少参数：" + name);
+        }
+        return value;
+    }
+
+    private static long number(Map<String, String> params, String name, long defaultValue) {
+        String value = params.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new BadRequest("参数 " + name + " 不是整数：" + value);
+        }
+    }
+
+    private static long limit(Map<String, String> params, long defaultValue) {
+        long limit = number(params, "limit", defaultValue);
+        if (limit < 0) {
+            throw new BadRequest("参数 limit 不能为负数：" + limit);
+        }
+        return limit;
+    }
+}
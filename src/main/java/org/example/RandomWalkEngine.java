@@ -0,0 +1,285 @@
+package org.example;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+/**
+ * 批量随机游走：为训练数据生成大量游走序列.
+ * <p>
+ * 加权模式下按边权重选择后继：每个节点的出边预先构造 Vose 别名表（概率与备选边下标按边存放，
+ * 与 CSR 的边数组对齐），每一步只需一次均匀整数与一次均匀小数，O(1)。均匀模式不构造别名表。
+ * 与交互式游走相同，遇到没有出边的节点或第一次重复走过某条边时停止（重复的边不计入结果）.
+ * <p>
+ * 第 i 次游走使用由主种子和 i 派生的 {@link SplittableRandom}，游走按编号顺序写出，
+ * 因此在同一张图上，给定种子的输出与线程数无关.
+ */
+final class RandomWalkEngine {
+
+    private static final int BLOCK = 1024;   // 每个任务负责的游走次数
+
+    private final CsrGraph graph;
+    private final boolean weighted;
+    private final double[] probability;      // 加权模式下的别名表，均匀模式下为 null
+    private final int[] alias;
+
+    RandomWalkEngine(CsrGraph graph, boolean weighted) {
+        this.graph = graph;
+        this.weighted = weighted;
+        if (weighted) {
+            probability = new double[graph.edgeCount()];
+            alias = new int[graph.edgeCount()];
+            buildAliasTables();
+        } else {
+            probability = null;
+            alias = null;
+        }
+    }
+
+    CsrGraph graph() {
+        return graph;
+    }
+
+    boolean weighted() {
+        return weighted;
+    }
+
+    /**
+     * 从 u 随机走一步，返回后继节点；u 没有出边时返回 -1.
+     */
+    int next(int u, SplittableRandom random) {
+        int start = graph.outStart(u);
+        int degree = graph.outEnd(u) - start;
+        if (degree == 0) {
+            return -1;
+        }
+        int e = start + random.nextInt(degree);
+        if (weighted && random.nextDouble() >= probability[e]) {
+            e = alias[e];
+        }
+        return graph.target(e);
+    }
+
+    /**
+     * 从 start 出发游走，把经过的单词（以空格分隔）追加到 out，返回走过的边数.
+     *
+     * @param maxSteps 最多走的步数
+     * @param visited  已走过的边集合，调用前会被清空
+     */
+    int walk(int start, SplittableRandom random, VisitedEdges visited, int maxSteps, StringBuilder out) {
+        visited.clear();
+        out.append(graph.word(start));
+        int curr = start;
+        int steps = 0;
+        while (steps < maxSteps) {
+            int next = next(curr, random);
+            if (next < 0 || !visited.add(EdgeCounter.key(curr, next))) {
+                break;
+            }
+            curr = next;
+            out.append(' ').append(graph.word(curr));
+            steps++;
+        }
+        return steps;
+    }
+
+    /**
+     * 并行执行 walks 次游走，每行一条写入 output，返回走过的总边数.
+     * 每次游走的起点均匀随机；progress 为 null 时不输出统计.
+     */
+    long run(Path output, long walks, long seed, int threads, int maxSteps, PrintStream progress)
+            throws IOException {
+        if (graph.nodeCount() == 0) {
+            throw new IllegalArgumentException("图为空！");
+        }
+        long start = System.nanoTime();
+        long blocks = (walks + BLOCK - 1) / BLOCK;
+        int batch = Math.max(1, threads) * 4;   // 每批并行的任务数
+        long[] steps = new long[batch];
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        long total = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            for (long first = 0; first < blocks; first += batch) {
+                int count = (int) Math.min(batch, blocks - first);
+                String[] texts = new String[count];
+                long base = first;
+                Future<?> task = pool.submit(() -> IntStream.range(0, count).parallel().forEach(b -> {
+                    long from = (base + b) * BLOCK;
+                    long to = Math.min(walks, from + BLOCK);
+                    StringBuilder text = new StringBuilder();
+                    VisitedEdges visited = new VisitedEdges();
+                    long walked = 0;
+                    for (long i = from; i < to; i++) {
+                        SplittableRandom random = new SplittableRandom(mix(seed, i));
+                        walked += walk(random.nextInt(graph.nodeCount()), random, visited, maxSteps, text);
+                        text.append('\n');
+                    }
+                    texts[b] = text.toString();
+                    steps[b] = walked;
+                }));
+                await(task);
+                for (int b = 0; b < count; b++) {
+                    writer.write(texts[b]);
+                    total += steps[b];
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        if (progress != null) {
+            double seconds = (System.nanoTime() - start) / 1e9;
+            progress.printf("已完成 %d 次游走（%s），共 %d 步，耗时 %.1f s，%.0f 次/秒%n", walks,
+                    weighted ? "按权重" : "均匀", total, seconds, walks / Math.max(seconds, 1e-9));
+        }
+        return total;
+    }
+
+    // 由主种子与编号派生独立的种子（SplitMix64 的混合函数），批量生成文本时同样使用
+    static long mix(long seed, long index) {
+        long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static void await(Future<?> task) throws IOException {
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("随机游走被中断", e);
+        } catch (ExecutionException e) {
+            throw new IOException("随机游走失败", e.getCause());
+        }
+    }
+
+    // Vose 别名法：每行把 degree·w/Σw 分成不足 1 与不少于 1 的两组，逐一配对
+    private void buildAliasTables() {
+        int[] small = new int[16];
+        int[] large = new int[16];
+        double[] scaled = new double[16];
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            int start = graph.outStart(u);
+            int degree = graph.outEnd(u) - start;
+            if (degree == 0) {
+                continue;
+            }
+            if (degree > scaled.length) {
+                small = new int[degree];
+                large = new int[degree];
+                scaled = new double[degree];
+            }
+            long sum = 0;
+            for (int i = 0; i < degree; i++) {
+                sum += graph.weight(start + i);
+            }
+            int smallCount = 0;
+            int largeCount = 0;
+            for (int i = 0; i < degree; i++) {
+                scaled[i] = (double) graph.weight(start + i) * degree / sum;
+                if (scaled[i] < 1.0) {
+                    small[smallCount++] = i;
+                } else {
+                    large[largeCount++] = i;
+                }
+            }
+            while (smallCount > 0 && largeCount > 0) {
+                int s = small[--smallCount];
+                int l = large[largeCount - 1];
+                probability[start + s] = scaled[s];
+                alias[start + s] = start + l;
+                scaled[l] -= 1.0 - scaled[s];
+                if (scaled[l] < 1.0) {
+                    largeCount--;
+                    small[smallCount++] = l;
+                }
+            }
+            // 剩余的项只因舍入误差偏离 1
+            while (largeCount > 0) {
+                int l = large[--largeCount];
+                probability[start + l] = 1.0;
+                alias[start + l] = start + l;
+            }
+            while (smallCount > 0) {
+                int s = small[--smallCount];
+                probability[start + s] = 1.0;
+                alias[start + s] = start + s;
+            }
+        }
+    }
+
+    /**
+     * 以 (srcId << 32 | dstId) 为键的开放寻址集合，记录一次游走走过的边.
+     * 清空时只重置用过的槽位，代价与上一次游走的长度成正比.
+     */
+    static final class VisitedEdges {
+        private static final long EMPTY = -1L;
+
+        private long[] keys = new long[64];
+        private int[] used = new int[32];
+        private int size;
+
+        VisitedEdges() {
+            Arrays.fill(keys, EMPTY);
+        }
+
+        /** 加入一条边，已存在时返回 false. */
+        boolean add(long key) {
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == key) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            if (size == used.length) {
+                used = Arrays.copyOf(used, size * 2);
+            }
+            used[size++] = slot;
+            if (size * 2 > keys.length) {
+                grow();
+            }
+            return true;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            for (int i = 0; i < size; i++) {
+                keys[used[i]] = EMPTY;
+            }
+            size = 0;
+        }
+
+        private void grow() {
+            long[] old = keys;
+            int[] oldUsed = used;
+            int count = size;
+            keys = new long[old.length * 2];
+            Arrays.fill(keys, EMPTY);
+            used = new int[keys.length / 2];
+            size = 0;
+            for (int i = 0; i < count; i++) {
+                add(old[oldUsed[i]]);
+            }
+        }
+
+        private static int mix(long k) {
+            long h = k * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
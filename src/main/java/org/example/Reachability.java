@@ -0,0 +1,267 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * 强连通分量分解与凝聚图上的可达性索引，用于在最短路径搜索之前排除不可达的词对.
+ * <p>
+ * 分量用迭代版 Tarjan 算法求出（不递归，长链也不会栈溢出），编号按完成顺序分配，
+ * 因此凝聚图中的边总是从编号大的分量指向编号小的分量. 每个分量带两组区间标签
+ * [low, rank]：rank 是一种拓扑序（后继更小），low 是它能到达的分量中最小的 rank.
+ * 若 a 能到达 b，则两组标签中 b 的区间都包含在 a 的区间内；任何一组不满足即可 O(1) 判定不可达.
+ * 两组标签都不能排除时，在凝聚图上做带同样剪枝的深度优先搜索得出确切答案.
+ * 实例创建后只读，可以并发查询.
+ */
+final class Reachability {
+
+    final CsrGraph graph;
+
+    private final int[] component;      // 节点 -> 分量编号
+    private final int[] sizes;          // 分量 -> 节点数
+    private final int[] dagOffsets;     // 凝聚图（CSR，已去重）
+    private final int[] dagTargets;
+    // 第一组标签的 rank 就是分量编号本身
+    private final int[] low1;
+    private final int[] rank2;
+    private final int[] low2;
+
+    private final int largest;
+    private final int singletons;
+    private final int sources;
+    private final int sinks;
+
+    Reachability(CsrGraph g) {
+        this.graph = g;
+        int n = g.nodeCount();
+        component = new int[n];
+        int count = tarjan(g, component);
+
+        sizes = new int[count];
+        for (int u = 0; u < n; u++) {
+            sizes[component[u]]++;
+        }
+
+        // 按分量分组节点（计数排序），逐个分量收集去重后的出边
+        int[] start = new int[count + 1];
+        for (int c = 0; c < count; c++) {
+            start[c + 1] = start[c] + sizes[c];
+        }
+        int[] members = new int[n];
+        int[] fill = Arrays.copyOf(start, count);
+        for (int u = 0; u < n; u++) {
+            members[fill[component[u]]++] = u;
+        }
+        dagOffsets = new int[count + 1];
+        int[] targets = new int[Math.max(16, count)];
+        int[] seenBy = new int[count];
+        Arrays.fill(seenBy, -1);
+        boolean[] hasIn = new boolean[count];
+        int edges = 0;
+        for (int c = 0; c < count; c++) {
+            for (int i = start[c]; i < start[c + 1]; i++) {
+                int u = members[i];
+                for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+                    int d = component[g.target(e)];
+                    if (d != c && seenBy[d] != c) {
+                        seenBy[d] = c;
+                        hasIn[d] = true;
+                        if (edges == targets.length) {
+                            targets = Arrays.copyOf(targets, edges * 2);
+                        }
+                        targets[edges++] = d;
+                    }
+                }
+            }
+            dagOffsets[c + 1] = edges;
+        }
+        dagTargets = Arrays.copyOf(targets, edges);
+
+        // 第一组标签：后继编号更小，按编号升序即可自底向上求 low
+        low1 = new int[count];
+        for (int c = 0; c < count; c++) {
+            int low = c;
+            for (int e = dagOffsets[c]; e < dagOffsets[c + 1]; e++) {
+                low = Math.min(low, low1[dagTargets[e]]);
+            }
+            low1[c] = low;
+        }
+        // 第二组标签：另一种遍历顺序下的后序编号，使两组区间尽量互补
+        rank2 = new int[count];
+        low2 = new int[count];
+        postOrder();
+
+        int max = 0;
+        int single = 0;
+        int noIn = 0;
+        int noOut = 0;
+        for (int c = 0; c < count; c++) {
+            max = Math.max(max, sizes[c]);
+            single += sizes[c] == 1 ? 1 : 0;
+            noIn += hasIn[c] ? 0 : 1;
+            noOut += dagOffsets[c] == dagOffsets[c + 1] ? 1 : 0;
+        }
+        largest = max;
+        singletons = single;
+        sources = noIn;
+        sinks = noOut;
+    }
+
+    // 迭代版 Tarjan：用显式的调用栈（节点与下一条待处理的出边）代替递归，返回分量个数
+    private static int tarjan(CsrGraph g, int[] component) {
+        int n = g.nodeCount();
+        int[] index = new int[n];
+        int[] low = new int[n];
+        int[] stack = new int[n];
+        int[] callNode = new int[n];
+        int[] callEdge = new int[n];
+        Arrays.fill(index, -1);
+        Arrays.fill(component, -1);
+        int counter = 0;
+        int sp = 0;
+        int count = 0;
+        for (int s = 0; s < n; s++) {
+            if (index[s] >= 0) {
+                continue;
+            }
+            int depth = 0;
+            callNode[0] = s;
+            callEdge[0] = g.outStart(s);
+            index[s] = low[s] = counter++;
+            stack[sp++] = s;
+            while (depth >= 0) {
+                int u = callNode[depth];
+                if (callEdge[depth] < g.outEnd(u)) {
+                    int v = g.target(callEdge[depth]++);
+                    if (index[v] < 0) {
+                        depth++;
+                        callNode[depth] = v;
+                        callEdge[depth] = g.outStart(v);
+                        index[v] = low[v] = counter++;
+                        stack[sp++] = v;
+                    } else if (component[v] < 0) {
+                        // 已访问但尚未归入分量，说明仍在栈上
+                        low[u] = Math.min(low[u], index[v]);
+                    }
+                    continue;
+                }
+                if (low[u] == index[u]) {
+                    int w;
+                    do {
+                        w = stack[--sp];
+                        component[w] = count;
+                    } while (w != u);
+                    count++;
+                }
+                if (--depth >= 0) {
+                    int parent = callNode[depth];
+                    low[parent] = Math.min(low[parent], low[u]);
+                }
+            }
+        }
+        return count;
+    }
+
+    // 从编号大的分量（更靠近源头）开始深度优先遍历，后继按逆序访问，后序编号即 rank2
+    private void postOrder() {
+        int count = sizes.length;
+        boolean[] visited = new boolean[count];
+        int[] callNode = new int[count];
+        int[] callEdge = new int[count];
+        int next = 0;
+        for (int s = count - 1; s >= 0; s--) {
+            if (visited[s]) {
+                continue;
+            }
+            int depth = 0;
+            callNode[0] = s;
+            callEdge[0] = dagOffsets[s + 1];
+            visited[s] = true;
+            while (depth >= 0) {
+                int c = callNode[depth];
+                if (callEdge[depth] > dagOffsets[c]) {
+                    int d = dagTargets[--callEdge[depth]];
+                    if (!visited[d]) {
+                        visited[d] = true;
+                        depth++;
+                        callNode[depth] = d;
+                        callEdge[depth] = dagOffsets[d + 1];
+                    }
+                    continue;
+                }
+                int low = next;
+                for (int e = dagOffsets[c]; e < dagOffsets[c + 1]; e++) {
+                    low = Math.min(low, low2[dagTargets[e]]);
+                }
+                rank2[c] = next++;
+                low2[c] = low;
+                depth--;
+            }
+        }
+    }
+
+    /** 节点 u 能否沿有向边到达节点 v（u 到自身总是可达）. */
+    boolean reachable(int u, int v) {
+        int from = component[u];
+        int to = component[v];
+        if (from == to) {
+            return true;
+        }
+        if (excluded(from, to)) {
+            return false;
+        }
+        // 标签无法判定：在凝聚图上搜索，同样用标签剪掉不可能到达 to 的分支
+        BitSet visited = new BitSet();
+        int[] stack = new int[16];
+        int sp = 0;
+        stack[sp++] = from;
+        visited.set(from);
+        while (sp > 0) {
+            int c = stack[--sp];
+            for (int e = dagOffsets[c]; e < dagOffsets[c + 1]; e++) {
+                int d = dagTargets[e];
+                if (d == to) {
+                    return true;
+                }
+                if (!visited.get(d) && !excluded(d, to)) {
+                    visited.set(d);
+                    if (sp == stack.length) {
+                        stack = Arrays.copyOf(stack, sp * 2);
+                    }
+                    stack[sp++] = d;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** 仅凭标签能否断定分量 a 到达不了分量 b. */
+    boolean excluded(int a, int b) {
+        return b > a || low1[a] > low1[b] || rank2[b] > rank2[a] || low2[a] > low2[b];
+    }
+
+    int componentCount() {
+        return sizes.length;
+    }
+
+    int component(int u) {
+        return component[u];
+    }
+
+    int componentSize(int c) {
+        return sizes[c];
+    }
+
+    int largestComponent() {
+        return largest;
+    }
+
+    @Override
+    public String toString() {
+        int n = graph.nodeCount();
+        return String.format("强连通分量 %d 个，最大的含 %d 个节点（%.1f%%），单节点分量 %d 个；"
+                        + "凝聚图 %d 条边，%d 个源头分量，%d 个汇点分量",
+                sizes.length, largest, n == 0 ? 0.0 : 100.0 * largest / n, singletons,
+                dagTargets.length, sources, sinks);
+    }
+}
@@ -0,0 +1,96 @@
+package org.example;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按源点缓存单源 BFS 最短路径树，按最近最少使用的顺序淘汰，总内存不超过给定的字节预算.
+ * 每棵树记录计算时所用的冻结快照，只有在同一个快照上查询时才命中：图被修改（重新冻结）后
+ * 对应的缓存项自动失效；缓存由多张 {@link Graph} 共用时，版本号相同的不同图也不会互相混用.
+ */
+final class ShortestPathCache {
+
+    private final long maxBytes;
+    private final Map<String, ShortestPaths.Tree> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    ShortestPathCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 获取 source 在图 g 上的最短路径树，缓存中没有或已过期时重新计算.
+     * 只有查找与插入持有锁，BFS 在锁外进行，不会阻塞其他源点的查询；
+     * 同一源点的并发未命中可能各算一份，结果相同，先插入的一份被保留.
+     */
+    ShortestPaths.Tree get(CsrGraph g, int source) {
+        String key = g.word(source);
+        synchronized (this) {
+            ShortestPaths.Tree tree = entries.get(key);
+            if (tree != null && tree.graph == g) {
+                hits++;
+                return tree;
+            }
+            misses++;
+        }
+
+        ShortestPaths.Tree tree = ShortestPaths.bfs(g, source);
+        synchronized (this) {
+            ShortestPaths.Tree current = entries.get(key);
+            if (current != null && current.graph == g) {
+                return current;
+            }
+            if (current != null) {
+                remove(key);
+            }
+            if (tree.bytes() <= maxBytes) {
+                entries.put(key, tree);
+                bytes += tree.bytes();
+                evict();
+            }
+        }
+        return tree;
+    }
+
+    /** 清空缓存（统计数据保留）. */
+    synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    synchronized long hits() {
+        return hits;
+    }
+
+    synchronized long misses() {
+        return misses;
+    }
+
+    @Override
+    public synchronized String toString() {
+        long total = hits + misses;
+        return String.format("最短路径缓存：%d 项，%.1f MB / %.1f MB，命中 %d，未命中 %d（命中率 %.1f%%），淘汰 %d",
+                entries.size(), bytes / 1e6, maxBytes / 1e6, hits, misses,
+                total == 0 ? 0.0 : 100.0 * hits / total, evictions);
+    }
+
+    private void remove(String key) {
+        ShortestPaths.Tree old = entries.remove(key);
+        if (old != null) {
+            bytes -= old.bytes();
+        }
+    }
+
+    private void evict() {
+        Iterator<ShortestPaths.Tree> it = entries.values().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            bytes -= it.next().bytes();
+            it.remove();
+            evictions++;
+        }
+    }
+}
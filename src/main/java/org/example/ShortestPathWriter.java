@@ -0,0 +1,100 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 把单源最短路径树逐行写出到 {@link Appendable}（文件、标准输出等），不在内存中拼出整个结果.
+ * <p>
+ * 按最短路径树的先序（同一父节点的子节点按编号升序）遍历：当前路径保存在一个 StringBuilder 中，
+ * 进入子节点时只追加 " -> word"，回溯时截断，因此每条路径都复用父节点的前缀，
+ * 不再为每个目标沿父指针重建并翻转列表。除最短路径树本身外只需 O(n) 个 int 的工作数组.
+ */
+final class ShortestPathWriter {
+
+    private ShortestPathWriter() {
+    }
+
+    /**
+     * 写出 tree 中源点到其余节点的最短路径，返回写出的行数.
+     *
+     * @param reachableOnly 为 true 时不输出不可达节点
+     * @param limit         最多输出的行数
+     */
+    static long write(ShortestPaths.Tree tree, Appendable out, boolean reachableOnly, long limit)
+            throws IOException {
+        CsrGraph g = tree.graph;
+        int n = g.nodeCount();
+        int source = tree.source;
+        String sourceWord = g.word(source);
+
+        // 由父指针构造子节点列表（CSR 形式），子节点按编号升序
+        int[] childOffsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            int parent = tree.parent(v);
+            if (parent >= 0) {
+                childOffsets[parent + 1]++;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            childOffsets[v + 1] += childOffsets[v];
+        }
+        int[] children = new int[childOffsets[n]];
+        int[] fill = new int[n];
+        for (int v = 0; v < n; v++) {
+            int parent = tree.parent(v);
+            if (parent >= 0) {
+                children[childOffsets[parent] + fill[parent]++] = v;
+            }
+        }
+
+        // 显式栈：节点、下一个待访问的子节点下标、进入该节点前前缀的长度
+        int[] stackNode = new int[16];
+        int[] stackChild = new int[16];
+        int[] stackLength = new int[16];
+        int depth = 0;
+        stackNode[0] = source;
+        stackChild[0] = childOffsets[source];
+        StringBuilder prefix = new StringBuilder(sourceWord);
+        stackLength[0] = prefix.length();
+        String head = "Shortest path from \"" + sourceWord + "\" to \"";
+
+        long written = 0;
+        while (depth >= 0 && written < limit) {
+            int u = stackNode[depth];
+            if (stackChild[depth] == childOffsets[u + 1]) {
+                depth--;
+                if (depth >= 0) {
+                    prefix.setLength(stackLength[depth]);
+                }
+                continue;
+            }
+            int v = children[stackChild[depth]++];
+            prefix.append(" -> ").append(g.word(v));
+            out.append(head).append(g.word(v)).append("\": ")
+                    .append(prefix).append(" (Distance: ").append(String.valueOf(tree.dist[v])).append(")\n");
+            written++;
+
+            depth++;
+            if (depth == stackNode.length) {
+                stackNode = Arrays.copyOf(stackNode, depth * 2);
+                stackChild = Arrays.copyOf(stackChild, depth * 2);
+                stackLength = Arrays.copyOf(stackLength, depth * 2);
+            }
+            stackNode[depth] = v;
+            stackChild[depth] = childOffsets[v];
+            stackLength[depth] = prefix.length();
+        }
+
+        if (!reachableOnly) {
+            for (int v = 0; v < n && written < limit; v++) {
+                if (!tree.reachable(v)) {
+                    out.append("No path from \"").append(sourceWord).append("\" to \"")
+                            .append(g.word(v)).append("\".\n");
+                    written++;
+                }
+            }
+        }
+        return written;
+    }
+}
@@ -0,0 +1,74 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * 单源最短路径：按边数的 BFS，结果为一棵以父节点数组表示的最短路径树.
+ */
+final class ShortestPaths {
+
+    /** 不可达节点的距离. */
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private ShortestPaths() {
+    }
+
+    /**
+     * 单源最短路径树：dist[v] 为源点到 v 的最短边数，parent(v) 为 v 在树中的父节点.
+     */
+    static final class Tree {
+        final CsrGraph graph;
+        final int source;
+        final int[] dist;
+        private final int[] parent;
+
+        Tree(CsrGraph graph, int source, int[] dist, int[] parent) {
+            this.graph = graph;
+            this.source = source;
+            this.dist = dist;
+            this.parent = parent;
+        }
+
+        boolean reachable(int v) {
+            return dist[v] != UNREACHABLE;
+        }
+
+        /** v 在最短路径树中的父节点，源点或不可达节点返回 -1. */
+        int parent(int v) {
+            return parent[v];
+        }
+
+        /** 占用的内存字节数（近似）. */
+        long bytes() {
+            return 4L * (dist.length + parent.length);
+        }
+    }
+
+    /**
+     * 按边数计算最短路径（每个节点只记录第一个发现它的前驱）.
+     */
+    static Tree bfs(CsrGraph g, int source) {
+        int n = g.nodeCount();
+        int[] dist = new int[n];
+        int[] parent = new int[n];
+        int[] queue = new int[n];
+        Arrays.fill(dist, UNREACHABLE);
+        Arrays.fill(parent, -1);
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        dist[source] = 0;
+        while (head < tail) {
+            int u = queue[head++];
+            for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+                int v = g.target(e);
+                if (dist[v] == UNREACHABLE) {
+                    dist[v] = dist[u] + 1;
+                    parent[v] = u;
+                    queue[tail++] = v;
+                }
+            }
+        }
+        return new Tree(g, source, dist, parent);
+    }
+}
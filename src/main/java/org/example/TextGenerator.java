@@ -0,0 +1,200 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * 根据桥接词生成新文本：相邻两个单词之间存在桥接词时，随机插入其中一个.
+ * 输入用与建图相同的 {@link CorpusTokenizer} 切分（如 "don't" 得到 "dont"），
+ * 桥接词在 {@link BridgeWords#forEach} 的回调中以蓄水池抽样选出，不收集到临时集合中.
+ * 实例内部复用分词器与节点编号缓存，不是线程安全的.
+ * <p>
+ * 批量生成时第 i 行使用由主种子和 i 派生的 {@link SplittableRandom}，结果按行号顺序写出，
+ * 因此在同一张图上，给定种子的输出与线程数无关.
+ */
+final class TextGenerator implements CorpusTokenizer.TokenSink {
+
+    private static final int BATCH = 8192;
+    private static final long PROGRESS_EVERY = 1_000_000;
+
+    private final CsrGraph graph;
+    private final CorpusTokenizer tokenizer = new CorpusTokenizer();
+    private int[] nodeIds = new int[0];     // 分词器编号 -> 节点编号，-1 表示不在图中，-2 表示尚未查询
+    private final IntConsumer reservoir = this::offer;
+
+    // 生成一句时的状态
+    private StringBuilder out;
+    private SplittableRandom random;
+    private boolean any;
+    private int prev;
+    private int seen;
+    private int chosen;
+    private long nextPick;      // 下一次替换发生在第几个候选
+
+    TextGenerator(CsrGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * 为一句输入插入桥接词，结果追加到 out；输入中没有单词时不追加任何内容.
+     */
+    void generate(String text, SplittableRandom random, StringBuilder out) {
+        this.out = out;
+        this.random = random;
+        any = false;
+        prev = -1;
+        tokenizer.feed(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)), this);
+        tokenizer.finish(this);
+        this.out = null;
+        this.random = null;
+    }
+
+    String generate(String text, SplittableRandom random) {
+        StringBuilder result = new StringBuilder(text.length() * 2);
+        generate(text, random, result);
+        return result.toString();
+    }
+
+    @Override
+    public void word(int id) {
+        int node = nodeId(id);
+        if (any) {
+            out.append(' ');
+        }
+        if (prev >= 0 && node >= 0) {
+            int bridge = bridge(prev, node);
+            if (bridge >= 0) {
+                out.append(graph.word(bridge)).append(' ');
+            }
+        }
+        out.append(tokenizer.word(id));
+        any = true;
+        prev = node;
+    }
+
+    @Override
+    public void lineBreak() {
+        prev = -1;      // 与建图一致：换行两侧的单词不相邻
+    }
+
+    /**
+     * 在 u 到 v 的桥接词中等概率选出一个，没有时返回 -1.
+     */
+    int bridge(int u, int v) {
+        seen = 0;
+        chosen = -1;
+        nextPick = 1;
+        BridgeWords.forEach(graph, u, v, reservoir);
+        return chosen;
+    }
+
+    // 蓄水池抽样：第 k 个候选以 1/k 的概率替换当前选择. 不对每个候选抽随机数，而是直接跳到下一次替换：
+    // 第 i 个候选被选中后，之后 i+1..j 都不替换的概率为 i/j，因此下一次替换位于 ceil(i / U)，U 在 (0, 1) 上均匀.
+    // 常见词之间的桥接词可能有上千个，这样只需 O(log k) 个随机数
+    private void offer(int x) {
+        if (++seen == nextPick) {
+            chosen = x;
+            double u = random.nextDouble();
+            nextPick = u == 0.0 ? Long.MAX_VALUE : (long) Math.ceil(seen / u);
+        }
+    }
+
+    private int nodeId(int id) {
+        if (id >= nodeIds.length) {
+            int oldLength = nodeIds.length;
+            nodeIds = Arrays.copyOf(nodeIds, Math.max(Math.max(oldLength * 2, 64), id + 1));
+            Arrays.fill(nodeIds, oldLength, nodeIds.length, -2);
+        }
+        if (nodeIds[id] == -2) {
+            nodeIds[id] = graph.id(tokenizer.word(id));
+        }
+        return nodeIds[id];
+    }
+
+    /**
+     * 逐行读取 input，并行生成后按输入顺序写入 output，返回处理的行数；progress 为 null 时不输出统计.
+     * 读取下一批的同时生成当前批，因此 I/O 与计算可以重叠.
+     */
+    static long run(CsrGraph g, Path input, Path output, long seed, int threads, PrintStream progress)
+            throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        ThreadLocal<TextGenerator> generators = ThreadLocal.withInitial(() -> new TextGenerator(g));
+        long start = System.nanoTime();
+        long done = 0;
+        long nextReport = PROGRESS_EVERY;
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            List<String> batch = readBatch(reader);
+            while (!batch.isEmpty()) {
+                String[] results = new String[batch.size()];
+                List<String> current = batch;
+                long first = done;
+                Future<?> task = pool.submit(() -> IntStream.range(0, current.size()).parallel().forEach(i -> {
+                    long timer = Metrics.start();
+                    SplittableRandom random = new SplittableRandom(RandomWalkEngine.mix(seed, first + i));
+                    results[i] = generators.get().generate(current.get(i), random);
+                    Metrics.stop(Metrics.Op.GENERATE_TEXT, timer);
+                }));
+
+                batch = readBatch(reader);
+                await(task);
+                for (String result : results) {
+                    writer.write(result);
+                    writer.newLine();
+                }
+
+                done += results.length;
+                if (progress != null && done >= nextReport) {
+                    progress.println(report(done, start));
+                    nextReport += PROGRESS_EVERY;
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        if (progress != null) {
+            progress.println(report(done, start));
+        }
+        return done;
+    }
+
+    private static List<String> readBatch(BufferedReader reader) throws IOException {
+        List<String> batch = new ArrayList<>(BATCH);
+        String line;
+        while (batch.size() < BATCH && (line = reader.readLine()) != null) {
+            batch.add(line);
+        }
+        return batch;
+    }
+
+    private static void await(Future<?> task) throws IOException {
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("批量生成被中断", e);
+        } catch (ExecutionException e) {
+            throw new IOException("批量生成失败", e.getCause());
+        }
+    }
+
+    private static String report(long done, long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return String.format("已生成 %d 句，耗时 %.1f s，%.0f 句/秒", done, seconds, done / Math.max(seconds, 1e-9));
+    }
+}
@@ -1,17 +1,50 @@
 package org.example;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 
 public class TextGraphApp {
-    static final Graph graph = new Graph();
+    // 以 -Dtextgraph.offheap=true 启动时边数据放在堆外，用于边数超出堆容量的语料
+    static final Graph graph = new Graph(Boolean.getBoolean("textgraph.offheap"));
 
-    private static List<String> corpusWords = new ArrayList<>();
     private static final double DAMPING_FACTOR = 0.85;
+    static final PageRankEngine PAGE_RANK = new PageRankEngine(DAMPING_FACTOR, 1e-10, 100, true);
+
+    // PageRank 结果缓存，以冻结后的图（含词频）为键
+    private static PageRankEngine.Result pageRankCache;
+    private static LocalPageRank localPageRank;
+    private static RandomWalkEngine walkEngine;
+    // 强连通分量与可达性索引，以冻结后的图为键；查询服务的多个线程会读取
+    private static volatile Reachability reachabilityCache;
+
+    // 最短路径树缓存，按源点单词索引，内存上限 64 MB
+    static final ShortestPathCache PATH_CACHE = new ShortestPathCache(64L << 20);
+    // 两点间最短路径默认最多列出的条数（总条数仍会完整统计）
+    static final long MAX_LISTED_PATHS = 100;
+    // 超过该大小的文件使用多线程并行建图
+    private static final long PARALLEL_THRESHOLD = 16L << 20;
+    // 展示有向图时最多打印的边数（DOT 文件中仍是全部）
+    static final int MAX_PRINTED_EDGES = 200;
+    // 图像渲染的默认超时（秒）
+    static final long RENDER_TIMEOUT_SECONDS = 60;
+    private static DotRenderer.Job rendering;
 
     public static void main(String[] args) {
+        if (args.length > 0) {
+            runCommand(args);
+            return;
+        }
+
         Scanner scanner = new Scanner(System.in);
-        System.out.println("请输入文本文件路径：");
+        System.out.println("请输入文本文件路径（也可以是目录或通配符，如 corpus/*.txt）：");
         String filepath = scanner.nextLine();
         loadTextAndBuildGraph(filepath);
 
@@ -23,15 +56,28 @@ public class TextGraphApp {
             System.out.println("4. 计算最短路径");
             System.out.println("5. 计算PageRank");
             System.out.println("6. 随机游走");
+            System.out.println("7. 批量随机游走（写入文件）");
+            System.out.println("8. 保存图快照");
+            System.out.println("9. 追加文本到当前图");
+            System.out.println("10. 运行统计");
+            System.out.println("11. 取消图像渲染");
+            System.out.println("12. 排行榜（Top-k）");
             System.out.println("0. 退出");
 
             int option = scanner.nextInt();
             scanner.nextLine(); // 处理回车
 
             switch (option) {
-                case 1 -> showDirectedGraph();
+                case 1 -> {
+                    System.out.println("输入筛选条件（直接回车展示整张图），如 top=100 by=pagerank min=2 ego=the radius=2：");
+                    try {
+                        showDirectedGraph(DotExporter.Filter.parse(scanner.nextLine()));
+                    } catch (IllegalArgumentException e) {
+                        System.out.println(e.getMessage());
+                    }
+                }
                 case 2 -> {
-                    handleBridgeWordsQuery();
+                    handleBridgeWordsQuery(scanner);
                 }
                 case 3 -> {
                     System.out.println("输入一句文本：");
@@ -46,7 +92,7 @@ public class TextGraphApp {
                     if (words.length == 1) {
                         String word = words[0];
                         System.out.println("计算从 " + word + " 到其他所有节点的最短路径：");
-                        System.out.println(findShortestPath(word)); // ✅
+                        printShortestPaths(word, false, Long.MAX_VALUE); // ✅
                     } else if (words.length == 2) {
                         String word1 = words[0];
                         String word2 = words[1];
@@ -56,15 +102,79 @@ public class TextGraphApp {
                     } else {
                         System.out.println("输入格式错误，请输入一个或两个单词。");
                     }
+                    System.out.println(PATH_CACHE);
                 }
 
                 case 5 -> {
-                    System.out.println("输入单词：");
-                    String word = scanner.next();
-                    System.out.printf("PageRank(%s) = %.5f\n", word, calPageRankWithTF(word, corpusWords));
+                    System.out.println("输入单词（可在其后加误差上界进行近似计算，如 the 1e-6）：");
+                    String[] parts = scanner.nextLine().trim().split("\\s+");
+                    String word = parts[0];
+                    if (parts.length > 1) {
+                        try {
+                            System.out.println(calPageRankApprox(word, Double.parseDouble(parts[1])));
+                        } catch (IllegalArgumentException e) {
+                            System.out.println("输入格式错误：" + e.getMessage());
+                        }
+                    } else {
+                        System.out.printf("PageRank(%s) = %.5f\n", word, calPageRankWithTF(word));
+                    }
                 }
                 case 6 -> System.out.println(randomWalk());
+                case 7 -> {
+                    System.out.println("输入输出文件、游走次数，可选 uniform（均匀选择后继）与随机种子，如 walks.txt 100000 uniform 42：");
+                    String[] parts = scanner.nextLine().trim().split("\\s+");
+                    if (parts.length < 2) {
+                        System.out.println("输入格式错误！");
+                        break;
+                    }
+                    boolean weighted = true;
+                    long seed = System.nanoTime();
+                    for (int i = 2; i < parts.length; i++) {
+                        if (parts[i].equals("uniform")) {
+                            weighted = false;
+                        } else {
+                            seed = Long.parseLong(parts[i]);
+                        }
+                    }
+                    try {
+                        generateRandomWalks(Paths.get(parts[0]), Long.parseLong(parts[1]), weighted, seed,
+                                Runtime.getRuntime().availableProcessors(), Integer.MAX_VALUE);
+                    } catch (IOException | IllegalArgumentException e) {
+                        System.out.println("随机游走失败：" + e.getMessage());
+                    }
+                }
+                case 8 -> {
+                    System.out.println("输入快照文件路径：");
+                    System.out.println(saveGraphSnapshot(scanner.nextLine().trim()));
+                }
+                case 9 -> {
+                    System.out.println("输入要追加的文本文件路径（也可以是目录或通配符）：");
+                    System.out.println(appendText(scanner.nextLine().trim()));
+                }
+                case 10 -> {
+                    System.out.println(Metrics.report(graph.freeze()));
+                    System.out.println(reachability(graph.freeze()));
+                    System.out.println("输入导出文件路径（.json 为 JSON，其他为 Prometheus 文本格式），直接回车跳过：");
+                    String path = scanner.nextLine().trim();
+                    if (!path.isEmpty()) {
+                        System.out.println(writeMetrics(path));
+                    }
+                }
+                case 11 -> {
+                    if (!cancelRendering()) {
+                        System.out.println("当前没有正在进行的图像渲染");
+                    }
+                }
+                case 12 -> {
+                    System.out.println("输入排行类型与个数，如 pagerank 10、in 10、out 10、tf 10、edges 10 或 next the 10：");
+                    try {
+                        System.out.print(topK(scanner.nextLine()));
+                    } catch (IllegalArgumentException e) {
+                        System.out.println(e.getMessage());
+                    }
+                }
                 case 0 -> {
+                    cancelRendering();
                     System.out.println("退出程序。");
                     return;
                 }
@@ -73,51 +183,362 @@ public class TextGraphApp {
         }
     }
 
-    private static void loadTextAndBuildGraph(String filepath) {
+    // 命令行（非交互）模式
+    private static void runCommand(String[] args) {
         try {
-            corpusWords.clear(); // 清空上一次的记录
-            Scanner fileScanner = new Scanner(new File(filepath));
-            while (fileScanner.hasNextLine()) {
-                String line = fileScanner.nextLine().toLowerCase().replaceAll("[^a-z\\s]", "");
-                String[] words = line.trim().split("\\s+");
-
-                for (int i = 0; i < words.length - 1; i++) {
-                    graph.addEdge(words[i], words[i + 1]);
-                    corpusWords.add(words[i]);
+            switch (args[0]) {
+                case "bridge-batch" -> {
+                    requireArgs(args, 4);
+                    loadTextAndBuildGraph(args[1]);
+                    int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+                    BatchBridgeQuery.run(graph.freeze(), Paths.get(args[2]), Paths.get(args[3]), threads, System.out);
                 }
-
-                if (words.length > 0) {
-                    corpusWords.add(words[words.length - 1]);
+                case "paths" -> {
+                    requireArgs(args, 3);
+                    loadTextAndBuildGraph(args[1]);
+                    boolean reachableOnly = false;
+                    long limit = Long.MAX_VALUE;
+                    String output = null;
+                    for (int i = 3; i < args.length; i++) {
+                        switch (args[i]) {
+                            case "--reachable" -> reachableOnly = true;
+                            case "--limit" -> limit = Long.parseLong(args[++i]);
+                            default -> output = args[i];
+                        }
+                    }
+                    if (output == null) {
+                        printShortestPaths(args[2], reachableOnly, limit);
+                    } else {
+                        try (Writer out = Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8)) {
+                            long lines = findShortestPath(args[2], out, reachableOnly, limit);
+                            System.out.println("已写出 " + lines + " 条最短路径到 " + output);
+                        }
+                    }
+                }
+                case "save" -> {
+                    requireArgs(args, 3);
+                    loadTextAndBuildGraph(args[1]);
+                    System.out.println(saveGraphSnapshot(args[2]));
+                }
+                case "walks" -> {
+                    requireArgs(args, 4);
+                    loadTextAndBuildGraph(args[1]);
+                    boolean weighted = true;
+                    long seed = System.nanoTime();
+                    int threads = Runtime.getRuntime().availableProcessors();
+                    int maxSteps = Integer.MAX_VALUE;
+                    for (int i = 4; i < args.length; i++) {
+                        switch (args[i]) {
+                            case "--uniform" -> weighted = false;
+                            case "--seed" -> seed = Long.parseLong(args[++i]);
+                            case "--threads" -> threads = Integer.parseInt(args[++i]);
+                            case "--max-steps" -> maxSteps = Integer.parseInt(args[++i]);
+                            default -> throw new IllegalArgumentException("未知参数：" + args[i]);
+                        }
+                    }
+                    generateRandomWalks(Paths.get(args[2]), Long.parseLong(args[3]), weighted, seed, threads, maxSteps);
+                }
+                case "dot" -> {
+                    requireArgs(args, 3);
+                    loadTextAndBuildGraph(args[1]);
+                    StringBuilder spec = new StringBuilder();
+                    String image = null;
+                    long timeout = RENDER_TIMEOUT_SECONDS;
+                    for (int i = 3; i < args.length; i++) {
+                        switch (args[i]) {
+                            case "--png" -> image = args[++i];
+                            case "--timeout" -> timeout = Long.parseLong(args[++i]);
+                            default -> spec.append(args[i]).append(' ');
+                        }
+                    }
+                    DotExporter.Selection selection = selectSubgraph(DotExporter.Filter.parse(spec.toString()));
+                    if (writeDot(selection, args[2]) && image != null) {
+                        DotRenderer.Job job = DotRenderer.start(Paths.get(args[2]), Paths.get(image),
+                                selection.nodeCount(), timeout);
+                        System.out.println(awaitRendering(job, timeout));
+                    }
+                }
+                case "ingest" -> {
+                    requireArgs(args, 2);
+                    CorpusPipeline defaults = CorpusPipeline.defaults();
+                    int readers = defaults.readers;
+                    int tokenizers = defaults.tokenizers;
+                    int builders = defaults.builders;
+                    int queue = -1;
+                    String snapshot = null;
+                    for (int i = 2; i < args.length; i++) {
+                        switch (args[i]) {
+                            case "--readers" -> readers = Integer.parseInt(args[++i]);
+                            case "--tokenizers" -> tokenizers = Integer.parseInt(args[++i]);
+                            case "--builders" -> builders = Integer.parseInt(args[++i]);
+                            case "--queue" -> queue = Integer.parseInt(args[++i]);
+                            case "--save" -> snapshot = args[++i];
+                            default -> throw new IllegalArgumentException("未知参数：" + args[i]);
+                        }
+                    }
+                    System.out.println(ingest(args[1], new CorpusPipeline(readers, tokenizers, builders,
+                            queue < 0 ? 2 * tokenizers : queue)));
+                    if (snapshot != null) {
+                        System.out.println(saveGraphSnapshot(snapshot));
+                    }
+                }
+                case "generate" -> {
+                    requireArgs(args, 4);
+                    loadTextAndBuildGraph(args[1]);
+                    long seed = System.nanoTime();
+                    int threads = Runtime.getRuntime().availableProcessors();
+                    for (int i = 4; i < args.length; i++) {
+                        switch (args[i]) {
+                            case "--seed" -> seed = Long.parseLong(args[++i]);
+                            case "--threads" -> threads = Integer.parseInt(args[++i]);
+                            default -> throw new IllegalArgumentException("未知参数：" + args[i]);
+                        }
+                    }
+                    System.out.println(generateNewTexts(Paths.get(args[2]), Paths.get(args[3]), seed, threads));
+                }
+                case "top" -> {
+                    requireArgs(args, 3);
+                    loadTextAndBuildGraph(args[1]);
+                    System.out.print(topK(String.join(" ", Arrays.copyOfRange(args, 2, args.length))));
+                }
+                case "components" -> {
+                    requireArgs(args, 2);
+                    loadTextAndBuildGraph(args[1]);
+                    System.out.println(reachability(graph.freeze()));
+                }
+                case "serve" -> {
+                    requireArgs(args, 2);
+                    loadTextAndBuildGraph(args[1]);
+                    int port = 8080;
+                    int threads = Runtime.getRuntime().availableProcessors();
+                    int queue = -1;
+                    long maxWait = 500;
+                    for (int i = 2; i < args.length; i++) {
+                        switch (args[i]) {
+                            case "--port" -> port = Integer.parseInt(args[++i]);
+                            case "--threads" -> threads = Integer.parseInt(args[++i]);
+                            case "--queue" -> queue = Integer.parseInt(args[++i]);
+                            case "--max-wait" -> maxWait = Long.parseLong(args[++i]);
+                            default -> throw new IllegalArgumentException("未知参数：" + args[i]);
+                        }
+                    }
+                    QueryServer server = new QueryServer(graph, port, threads, queue < 0 ? threads * 16 : queue, maxWait);
+                    server.start();
+                    Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(1)));
+                    System.out.println("查询服务已启动：http://" + server.address().getHostString() + ":"
+                            + server.address().getPort() + "/（" + threads + " 个工作线程，按 Ctrl+C 停止）");
+                    return;     // 服务线程不是守护线程，进程会一直运行
                 }
+                default -> printUsage();
             }
-            System.out.println("图构建成功，共有节点：" + graph.getNodes().size());
-        } catch (FileNotFoundException e) {
+            String metricsFile = System.getProperty("textgraph.metrics.file");
+            if (metricsFile != null) {
+                System.out.println(writeMetrics(metricsFile));
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            printUsage();
+        } catch (IOException e) {
+            System.err.println("执行失败：" + e.getMessage());
+        }
+    }
+
+    private static void requireArgs(String[] args, int count) {
+        if (args.length < count) {
+            throw new IllegalArgumentException("参数不足：" + String.join(" ", args));
+        }
+    }
+
+    private static void printUsage() {
+        System.out.println("用法：");
+        System.out.println("  （无参数）                                       交互菜单");
+        System.out.println("  save <语料> <快照文件>                            把建好的图保存为快照（<语料> 处均可直接使用快照）");
+        System.out.println("  bridge-batch <语料> <词对文件> <输出文件> [线程数]     批量查询桥接词");
+        System.out.println("  walks <语料> <输出文件> <次数> [--uniform] [--seed S] [--threads T] [--max-steps L]  批量随机游走");
+        System.out.println("  paths <语料> <单词> [输出文件] [--reachable] [--limit N]  输出单源最短路径");
+        System.out.println("  ingest <目录|通配符> [--readers R] [--tokenizers T] [--builders B] [--queue Q] [--save 快照文件]");
+        System.out.println("                                                   流水线加载多个文件并报告各阶段吞吐");
+        System.out.println("  generate <语料> <输入文件> <输出文件> [--seed S] [--threads T]  逐行插入桥接词生成新文本");
+        System.out.println("  top <语料> pagerank|in|out|tf|edges [k]         按指标列出前 k 个单词或权重最大的 k 条边");
+        System.out.println("  top <语料> next <单词> [k]                       列出单词权重最大的 k 个后继");
+        System.out.println("  components <语料>                                统计强连通分量与凝聚图");
+        System.out.println("  serve <语料> [--port P] [--threads T] [--queue Q] [--max-wait 毫秒]  启动本机查询服务");
+        System.out.println("  dot <语料> <DOT 文件> [top=K] [by=degree|pagerank|weight] [min=W] [ego=单词] [radius=R] [--png 图像文件] [--timeout 秒]");
+        System.out.println("                                                   导出（筛选后的）子图并可渲染为图像");
+        System.out.println("  （<语料> 可以是目录或通配符，如 corpus/*.txt；加 -Dtextgraph.metrics.file=<文件> 在命令结束后导出运行统计，");
+        System.out.println("   加 -Dtextgraph.offheap=true 把边数据放在堆外，用于超出堆容量的语料）");
+    }
+
+    static void loadTextAndBuildGraph(String filepath) {
+        try {
+            resetGraph(); // 清空上一次的图与词频，二者必须一起重建
+            long start = Metrics.start();
+            if (!CorpusPipeline.isMultiFile(filepath) && GraphSnapshot.isSnapshot(Paths.get(filepath))) {
+                loadSnapshot(Paths.get(filepath));
+            } else {
+                String stats = loadInto(filepath, CorpusPipeline.defaults());
+                System.out.println("图构建成功，共有节点：" + graph.nodeCount());
+                System.out.println(stats);
+            }
+            Metrics.stop(Metrics.Op.INGEST, start);
+            Metrics.heapAfterBuild();
+        } catch (NoSuchFileException e) {
             System.out.println("找不到文件: " + filepath);
+        } catch (IOException e) {
+            System.out.println("读取文件失败: " + e.getMessage());
+        }
+    }
+
+    // 把文本文件中的边与单词加入当前图，返回加载统计. 大文件在多核机器上并行加载
+    // （边在堆外时除外：并行加载要在堆上同时保留各块的局部边表）；
+    // 目录或通配符按多文件流水线加载，每个文件是一篇独立的文档
+    private static String loadInto(String filepath, CorpusPipeline pipeline) throws IOException {
+        if (CorpusPipeline.isMultiFile(filepath)) {
+            return pipeline.load(CorpusPipeline.expand(filepath), graph).toString();
+        }
+        Path path = Paths.get(filepath);
+        int threads = Runtime.getRuntime().availableProcessors();
+        return (threads > 1 && !graph.isOffHeap() && Files.size(path) > PARALLEL_THRESHOLD
+                ? GraphLoader.loadParallel(path, graph, threads)
+                : GraphLoader.load(path, graph)).toString();
+    }
+
+    /**
+     * 按指定的流水线配置加载目录或通配符匹配的全部文件（替换当前图），返回每个阶段的吞吐与队列占用.
+     */
+    public static String ingest(String spec, CorpusPipeline pipeline) {
+        resetGraph();
+        long start = Metrics.start();
+        try {
+            CorpusPipeline.Report report = pipeline.load(CorpusPipeline.expand(spec), graph);
+            Metrics.stop(Metrics.Op.INGEST, start);
+            Metrics.heapAfterBuild();
+            return "图构建成功，共有节点：" + graph.nodeCount() + "\n" + report;
+        } catch (NoSuchFileException e) {
+            return "找不到文件: " + spec;
+        } catch (IOException e) {
+            return "读取文件失败: " + e.getMessage();
+        }
+    }
+
+    /**
+     * 把新文档追加到当前图中：边权重与词频在原有基础上累加，并报告变化的节点与边.
+     * 之前算过 PageRank 时，以上一次的得分为初始值热启动更新.
+     */
+    public static String appendText(String filepath) {
+        GraphDelta delta = graph.startTracking();
+        String stats;
+        long start = Metrics.start();
+        try {
+            stats = loadInto(filepath, CorpusPipeline.defaults());
+        } catch (NoSuchFileException e) {
+            return "找不到文件: " + filepath;
+        } catch (IOException e) {
+            return "读取文件失败: " + e.getMessage();
+        } finally {
+            graph.stopTracking();
+        }
+        Metrics.stop(Metrics.Op.INGEST, start);
+        PATH_CACHE.clear(); // 旧的最短路径树都已过期，直接释放
+
+        StringBuilder result = new StringBuilder();
+        result.append("追加成功，共有节点：").append(graph.nodeCount()).append("\n");
+        result.append(stats).append("\n").append(delta);
+        PageRankEngine.Result previous = pageRankCache;
+        CsrGraph g = graph.freeze();
+        if (previous != null && delta.changedEdges() > 0 && PageRankEngine.extendsGraph(previous.graph, g)) {
+            int before = previous.iterations;
+            long refreshStart = System.nanoTime();
+            long timer = Metrics.start();
+            PageRankEngine.Result updated = PAGE_RANK.refresh(previous, g, delta);
+            Metrics.stop(Metrics.Op.PAGE_RANK, timer);
+            Metrics.pageRankIterations(updated.iterations);
+            pageRankCache = updated;
+            result.append(String.format("\nPageRank 已热启动更新：迭代 %d 次（上次 %d 次），耗时 %.1f ms",
+                    updated.iterations, before, (System.nanoTime() - refreshStart) / 1e6));
+        }
+        return result.toString();
+    }
+
+    // 从快照恢复图与词频
+    private static void loadSnapshot(Path path) throws IOException {
+        long start = System.nanoTime();
+        GraphSnapshot.Contents contents = GraphSnapshot.load(path, graph);
+        CsrGraph g = graph.freeze();
+        System.out.println("图快照加载成功，共有节点：" + g.nodeCount());
+        System.out.printf("快照 %d 字节，%d 条边，语料共 %d 个单词，耗时 %.1f ms\n",
+                contents.bytes, g.edgeCount(), contents.tokens, (System.nanoTime() - start) / 1e6);
+    }
+
+    /**
+     * 把当前图（含词频）保存为二进制快照，之后可以像文本文件一样直接加载.
+     */
+    public static String saveGraphSnapshot(String filepath) {
+        CsrGraph g = graph.freeze();
+        try {
+            long bytes = GraphSnapshot.save(g, g.termCounts(), g.tokenCount(), Paths.get(filepath));
+            return "已保存图快照到 " + filepath + "（" + bytes + " 字节）";
+        } catch (IOException e) {
+            return "保存快照失败：" + e.getMessage();
+        }
+    }
+
+    /**
+     * 把运行统计导出到文件：扩展名为 .json 时为 JSON，否则为 Prometheus 文本格式.
+     */
+    public static String writeMetrics(String filepath) {
+        try {
+            Metrics.write(Paths.get(filepath), graph.freeze());
+            return "已导出运行统计到 " + filepath;
+        } catch (IOException e) {
+            return "导出运行统计失败：" + e.getMessage();
         }
     }
 
     // 展示图（命令行格式）
-    //showDirectedGraph() 方法遍历图的所有节点和它们的邻接节点，输出图的所有边以及它们的权重（这里假设每条边的权重为 1）。
-    //同时，调用 exportGraphToDot 方法将图导出为 .dot 文件，然后调用 generateGraphImage 生成图像。
+    // 打印图的边及其权重（最多 MAX_PRINTED_EDGES 条），同时把图导出为 .dot 文件并在后台生成图像.
     public static void showDirectedGraph() {
-        System.out.println("当前有向图：");
-        for (String from : graph.getNodes()) {
-            Map<String, Integer> edges = graph.getNeighbors(from);
-            for (Map.Entry<String, Integer> entry : edges.entrySet()) {
-                System.out.printf("%s -> %s [weight=%d]\n", from, entry.getKey(), entry.getValue());
+        showDirectedGraph(DotExporter.Filter.ALL);
+    }
+
+    /**
+     * 展示按 filter 筛选出的子图：打印前若干条边，导出 DOT 文件，并在后台渲染图像（不阻塞菜单）.
+     */
+    public static void showDirectedGraph(DotExporter.Filter filter) {
+        DotExporter.Selection selection = selectSubgraph(filter);
+        CsrGraph g = selection.graph;
+        System.out.println("当前有向图（" + filter + "）：");
+        StringBuilder text = new StringBuilder();
+        int[] edges = new int[1];
+        selection.forEachEdge((from, to, weight) -> {
+            if (edges[0]++ < MAX_PRINTED_EDGES) {
+                text.append(g.word(from)).append(" -> ").append(g.word(to))
+                        .append(" [weight=").append(weight).append("]\n");
             }
+        });
+        System.out.print(text);
+        if (edges[0] > MAX_PRINTED_EDGES) {
+            System.out.println("……共 " + edges[0] + " 条边，仅显示前 " + MAX_PRINTED_EDGES + " 条，完整内容见 DOT 文件");
         }
 
         // 导出并生成图像
         String dotPath = "graph_output.dot";
         String imgPath = "graph_output.png";
-        exportGraphToDot(dotPath);
-        generateGraphImage(dotPath, imgPath);
+        if (writeDot(selection, dotPath)) {
+            renderInBackground(dotPath, imgPath, selection.nodeCount());
+        }
+    }
+
+    // 按条件筛选当前图，按 PageRank 选取时先计算（或取缓存的）PageRank
+    static DotExporter.Selection selectSubgraph(DotExporter.Filter filter) {
+        CsrGraph g = graph.freeze();
+        double[] scores = filter.top > 0 && filter.rank == DotExporter.Rank.PAGERANK
+                ? pageRank().scores : null;
+        return DotExporter.select(g, filter, scores);
     }
 
     // 处理桥接词查询的函数
-    public static void handleBridgeWordsQuery() {
-        Scanner scanner = new Scanner(System.in);
+    public static void handleBridgeWordsQuery(Scanner scanner) {
         System.out.print("请输入两个单词（用空格分隔）：");
         String inputLine = scanner.nextLine().trim();
 
@@ -154,16 +575,25 @@ public class TextGraphApp {
             return findShortestPath(word1);
         }
 
-        if (!nodeExists(word2)) {
+        long start = Metrics.start();
+        String message = bridgeWordsMessage(graph.freeze(), word1, word2);
+        Metrics.stop(Metrics.Op.BRIDGE_QUERY, start);
+        return message;
+    }
+
+    // 在冻结的图上查询两个（已转为小写的）单词之间的桥接词，不读写任何共享状态，可并发调用
+    static String bridgeWordsMessage(CsrGraph g, String word1, String word2) {
+        int u = g.id(word1);
+        int v = g.id(word2);
+        if (u < 0) {
+            return "No \"" + word1 + "\" in the graph!";
+        }
+        if (v < 0) {
             return "No \"" + word2 + "\" in the graph!";
         }
 
-        Set<String> bridges = new HashSet<>();
-        for (String candidate : graph.getNeighbors(word1).keySet()) {
-            if (graph.getNeighbors(candidate).containsKey(word2)) {
-                bridges.add(candidate);
-            }
-        }
+        List<String> bridges = new ArrayList<>();
+        BridgeWords.forEach(g, u, v, bridge -> bridges.add(g.word(bridge)));
 
         if (bridges.isEmpty()) {
             return "No bridge words from \"" + word1 + "\" to \"" + word2 + "\"!";
@@ -176,256 +606,308 @@ public class TextGraphApp {
 
     // 辅助函数检查节点是否存在于图中
     public static boolean nodeExists(String word) {
-        return graph.containsNode(word) || graph.getNeighbors(word).size() > 0;
+        return graph.containsNode(word);
     }
 
 
 
     // 计算最短路径的方法
     public static String findShortestPath(String startWord) {
-        startWord = startWord.toLowerCase();
-
-        if (!graph.containsNode(startWord)) {
-            return "No \"" + startWord + "\" in the graph!";
+        StringBuilder result = new StringBuilder();
+        try {
+            findShortestPath(startWord, result, false, Long.MAX_VALUE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder 不会抛出
         }
+        return result.toString();
+    }
 
-        // BFS初始化
-        Queue<String> queue = new LinkedList<>();
-        Map<String, String> predecessors = new HashMap<>();
-        Map<String, Integer> distances = new HashMap<>();
-        Set<String> visited = new HashSet<>();
-
-        // 初始化起始节点
-        queue.add(startWord);
-        visited.add(startWord);
-        distances.put(startWord, 0);
-
-        // 广度优先搜索
-        while (!queue.isEmpty()) {
-            String currentNode = queue.poll();
-            int currentDistance = distances.get(currentNode);
-
-            for (String neighbor : graph.getNeighbors(currentNode).keySet()) {
-                if (!visited.contains(neighbor)) {
-                    queue.add(neighbor);
-                    visited.add(neighbor);
-                    distances.put(neighbor, currentDistance + 1);
-                    predecessors.put(neighbor, currentNode);
-                }
-            }
+    // 把单源最短路径直接写到标准输出（带缓冲，不关闭 System.out）
+    private static void printShortestPaths(String startWord, boolean reachableOnly, long limit) {
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+        try {
+            findShortestPath(startWord, out, reachableOnly, limit);
+            out.append('\n');
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("输出失败：" + e.getMessage());
         }
+    }
 
-        // 生成结果
-        StringBuilder result = new StringBuilder();
-        for (String node : graph.getNodes()) {
-            if (!node.equals(startWord)) {
-                if (distances.containsKey(node)) {
-                    result.append("Shortest path from \"" + startWord + "\" to \"" + node + "\": ");
-                    List<String> path = new ArrayList<>();
-                    String current = node;
-                    while (current != null) {
-                        path.add(current);
-                        current = predecessors.get(current);
-                    }
-                    Collections.reverse(path);
-                    result.append(String.join(" -> ", path));
-                    result.append(" (Distance: " + distances.get(node) + ")\n");
-                } else {
-                    result.append("No path from \"" + startWord + "\" to \"" + node + "\".\n");
-                }
-            }
+    /**
+     * 把 startWord 到其他节点的最短路径逐行写到 out，不在内存中拼出完整结果.
+     * 可达节点按最短路径树的先序输出，不可达节点随后按编号输出.
+     *
+     * @param reachableOnly 为 true 时只输出可达节点
+     * @param limit         最多输出的行数
+     * @return 输出的行数
+     */
+    public static long findShortestPath(String startWord, Appendable out, boolean reachableOnly, long limit)
+            throws IOException {
+        startWord = startWord.toLowerCase();
+
+        CsrGraph g = graph.freeze();
+        if (g.id(startWord) < 0) {
+            out.append("No \"" + startWord + "\" in the graph!");
+            return 0;
         }
 
-        return result.toString();
+        long start = Metrics.start();
+        // 广度优先搜索（结果按源点缓存）
+        ShortestPaths.Tree tree = PATH_CACHE.get(g, g.id(startWord));
+        long lines = ShortestPathWriter.write(tree, out, reachableOnly, limit);
+        Metrics.stop(Metrics.Op.SHORTEST_PATH, start);
+        return lines;
     }
 
     // 插入桥接词生成新文本
     public static String generateNewText(String inputText) {
-        String[] words = inputText.toLowerCase().replaceAll("[^a-zA-Z ]", " ").split("\\s+");
-        StringBuilder result = new StringBuilder(words[0]);
+        long start = Metrics.start();
+        String text = generateNewText(graph.freeze(), inputText, new SplittableRandom());
+        Metrics.stop(Metrics.Op.GENERATE_TEXT, start);
+        return text;
+    }
 
-        Random rand = new Random();
-        for (int i = 0; i < words.length - 1; i++) {
-            String w1 = words[i], w2 = words[i + 1];
-            Set<String> bridges = new HashSet<>();
-            for (String b : graph.getNeighbors(w1).keySet()) {
-                if (graph.getNeighbors(b).containsKey(w2)) {
-                    bridges.add(b);
-                }
-            }
-            if (!bridges.isEmpty()) {
-                List<String> list = new ArrayList<>(bridges);
-                String bridge = list.get(rand.nextInt(list.size()));
-                result.append(" ").append(bridge);
-            }
-            result.append(" ").append(w2);
+    // 在冻结的图上插入桥接词，不读写共享状态，可并发调用. 输入按建图规则切分，没有任何单词时返回空串
+    static String generateNewText(CsrGraph g, String inputText, SplittableRandom random) {
+        return new TextGenerator(g).generate(inputText, random);
+    }
+
+    /**
+     * 批量生成：逐行读取输入文件，多线程生成后按行写入输出文件.
+     * 给定种子时输出与线程数无关.
+     */
+    public static String generateNewTexts(Path input, Path output, long seed, int threads) {
+        try {
+            long lines = TextGenerator.run(graph.freeze(), input, output, seed, threads, System.out);
+            return "已写出 " + lines + " 行到 " + output;
+        } catch (NoSuchFileException e) {
+            return "找不到文件: " + e.getFile();
+        } catch (IOException e) {
+            return "批量生成失败：" + e.getMessage();
         }
-        return result.toString();
     }
 
-    // 最短路径（Dijkstra）
-    // 最短路径（Dijkstra + 回溯所有路径）
+    // 最短路径（双向 Dijkstra + 按需枚举所有路径）
     public static String calcShortestPath(String word1, String word2) {
+        return calcShortestPath(word1, word2, MAX_LISTED_PATHS);
+    }
+
+    /**
+     * 计算 word1 到 word2 的全部最短路径：输出并列路径的总条数，但最多列出 limit 条.
+     */
+    public static String calcShortestPath(String word1, String word2, long limit) {
+        long start = Metrics.start();
+        String message = shortestPathsMessage(graph.freeze(), word1, word2, limit);
+        Metrics.stop(Metrics.Op.SHORTEST_PATH, start);
+        return message;
+    }
+
+    // 在冻结的图上计算两点间的全部最短路径，只读取可达性索引的缓存，可并发调用
+    static String shortestPathsMessage(CsrGraph g, String word1, String word2, long limit) {
         word1 = word1.toLowerCase();
         word2 = word2.toLowerCase();
 
-        if (!graph.containsNode(word1) || !graph.containsNode(word2)) {
+        if (g.id(word1) < 0 || g.id(word2) < 0) {
             return "图中不存在输入的单词！";
         }
-
-        // Dijkstra 最短距离
-        Map<String, Integer> dist = new HashMap<>();
-        Map<String, List<String>> predecessors = new HashMap<>();
-        for (String node : graph.getNodes()) {
-            dist.put(node, Integer.MAX_VALUE);
-            predecessors.put(node, new ArrayList<>());
-        }
-
-        PriorityQueue<String> pq = new PriorityQueue<>(Comparator.comparingInt(dist::get));
-        dist.put(word1, 0);
-        pq.add(word1);
-
-        while (!pq.isEmpty()) {
-            String curr = pq.poll();
-            int currDist = dist.get(curr);
-
-            for (Map.Entry<String, Integer> entry : graph.getNeighbors(curr).entrySet()) {
-                String neighbor = entry.getKey();
-                int weight = entry.getValue();
-                int newDist = currDist + weight;
-
-                if (newDist < dist.get(neighbor)) {
-                    dist.put(neighbor, newDist);
-                    predecessors.get(neighbor).clear();
-                    predecessors.get(neighbor).add(curr);
-                    pq.add(neighbor);
-                } else if (newDist == dist.get(neighbor)) {
-                    predecessors.get(neighbor).add(curr);
-                }
-            }
+        // 先查可达性索引，不可达的词对无需搜索
+        if (!reachability(g).reachable(g.id(word1), g.id(word2))) {
+            return "无法从 " + word1 + " 到达 " + word2;
         }
 
-        if (dist.get(word2) == Integer.MAX_VALUE) {
+        PointToPointPaths.Result paths = PointToPointPaths.search(g, g.id(word1), g.id(word2));
+        if (!paths.reachable()) {
             return "无法从 " + word1 + " 到达 " + word2;
         }
 
-        // 回溯所有路径
-        List<List<String>> allPaths = new ArrayList<>();
-        LinkedList<String> currentPath = new LinkedList<>();
-        currentPath.add(word2);
-        backtrackPaths(word2, word1, predecessors, currentPath, allPaths);
-
+        long total = paths.pathCount();
         StringBuilder result = new StringBuilder();
-        result.append("共找到 ").append(allPaths.size()).append(" 条最短路径，长度为 ").append(dist.get(word2)).append("：\n");
+        result.append("共找到 ").append(total == Long.MAX_VALUE ? "超过 " + Long.MAX_VALUE : String.valueOf(total))
+                .append(" 条最短路径，长度为 ").append(paths.distance).append("：\n");
         int count = 1;
-        for (List<String> path : allPaths) {
-            Collections.reverse(path);
+        for (Iterator<int[]> it = paths.paths(limit); it.hasNext(); ) {
+            int[] path = it.next();
             result.append("路径 ").append(count++).append(": ");
-            result.append(String.join(" -> ", path)).append("\n");
+            for (int i = 0; i < path.length; i++) {
+                if (i > 0) {
+                    result.append(" -> ");
+                }
+                result.append(g.word(path[i]));
+            }
+            result.append("\n");
+        }
+        if (total > limit) {
+            result.append("（仅列出前 ").append(limit).append(" 条）\n");
         }
-
         return result.toString();
     }
 
-    // 回溯所有路径的辅助方法
-    private static void backtrackPaths(String current, String start, Map<String, List<String>> predecessors,
-                                       LinkedList<String> path, List<List<String>> result) {
-        if (current.equals(start)) {
-            result.add(new ArrayList<>(path));
-            return;
-        }
-
-        for (String pred : predecessors.get(current)) {
-            path.addLast(pred);
-            backtrackPaths(pred, start, predecessors, path, result);
-            path.removeLast();
+    /**
+     * 图 g 的强连通分量与可达性索引，首次使用时构建（O(节点 + 边)），之后直到图发生变化前都复用.
+     * 并发调用时可能重复构建，结果相同.
+     */
+    static Reachability reachability(CsrGraph g) {
+        Reachability cached = reachabilityCache;
+        if (cached == null || cached.graph != g) {
+            cached = new Reachability(g);
+            reachabilityCache = cached;
         }
+        return cached;
     }
 
+    /**
+     * 单词的 PageRank，以建图时统计的词频初始化.
+     */
+    public static double calPageRankWithTF(String word) {
+        return pageRank().score(word);
+    }
 
+    /**
+     * 以给定语料（而不是建图时统计的词频）初始化计算单词的 PageRank，结果不缓存.
+     */
     public static double calPageRankWithTF(String word, List<String> corpusWords) {
-        int N = graph.getNodes().size();  // 节点总数
-        Map<String, Double> pr = new HashMap<>();
-        Map<String, Integer> tf = new HashMap<>();
-        double totalCount = 0.0;
-
-        // 1. 统计词频
+        CsrGraph g = graph.freeze();
+        int[] tf = new int[g.nodeCount()];
         for (String w : corpusWords) {
-            w = w.toLowerCase();
-            if (graph.containsNode(w)) {
-                tf.put(w, tf.getOrDefault(w, 0) + 1);
-                totalCount += 1;
+            int id = g.id(w.toLowerCase());
+            if (id >= 0) {
+                tf[id]++;
             }
         }
+        return PAGE_RANK.compute(g, tf).score(word);
+    }
 
-        // 2. 用词频归一化作为初始 PageRank 值（若某节点不在词频中，则均分剩余）
-        double tfSum = tf.values().stream().mapToInt(i -> i).sum();
-        double defaultPr = (1.0 - tfSum / totalCount) / (N - tf.size());  // 给未出现的节点均分剩余
-        for (String node : graph.getNodes()) {
-            if (tf.containsKey(node)) {
-                pr.put(node, tf.get(node) / totalCount);  // 权重初始化
-            } else {
-                pr.put(node, defaultPr);  // 均匀初始化
-            }
+    /**
+     * 返回整张图的 PageRank 向量。结果会被缓存，直到图或词频发生变化.
+     */
+    static PageRankEngine.Result pageRank() {
+        CsrGraph g = graph.freeze();
+        PageRankEngine.Result cached = pageRankCache;
+        if (cached != null && cached.graph == g) {
+            return cached;
         }
+        cached = computePageRank(g);
+        pageRankCache = cached;
+        return cached;
+    }
 
-        // 3. PageRank 主体迭代部分
-        for (int iter = 0; iter < 100; iter++) {
-            Map<String, Double> newPr = new HashMap<>();
-            double danglingSum = 0.0;
+    /**
+     * 不经缓存计算 PageRank（以图中的词频初始化），并记录耗时与迭代次数.
+     */
+    static PageRankEngine.Result computePageRank(CsrGraph g) {
+        long start = Metrics.start();
+        PageRankEngine.Result result = PAGE_RANK.compute(g);
+        Metrics.stop(Metrics.Op.PAGE_RANK, start);
+        Metrics.pageRankIterations(result.iterations);
+        return result;
+    }
 
-            for (String node : graph.getNodes()) {
-                if (graph.getNeighbors(node).isEmpty()) {
-                    danglingSum += pr.get(node);
-                }
-            }
+    /**
+     * 当前图的 PageRank；加锁保护结果缓存，可在查询服务的多个线程中调用.
+     */
+    static synchronized PageRankEngine.Result currentPageRank() {
+        return pageRank();
+    }
 
-            for (String node : graph.getNodes()) {
-                double sum = 0.0;
+    /**
+     * 用反向局部推送近似计算单个单词的 PageRank，绝对误差不超过 epsilon.
+     * epsilon 不是有限正数时抛出 IllegalArgumentException.
+     */
+    public static String calPageRankApprox(String word, double epsilon) {
+        CsrGraph g = graph.freeze();
+        LocalPageRank local = localPageRank;
+        if (local == null || local.graph() != g || local.epsilon() != epsilon) {
+            local = new LocalPageRank(g, DAMPING_FACTOR, epsilon);
+            localPageRank = local;
+        }
+        long start = System.nanoTime();
+        LocalPageRank.Estimate estimate = local.estimate(word);
+        if (estimate == null) {
+            return "No \"" + word + "\" in the graph!";
+        }
+        return String.format("PageRank(%s) ≈ %.5f（误差 ≤ %.1e，访问 %d 个节点，耗时 %.2f ms）",
+                word, estimate.score, estimate.errorBound, estimate.touched, (System.nanoTime() - start) / 1e6);
+    }
 
-                for (String other : graph.getNodes()) {
-                    if (graph.getNeighbors(other).containsKey(node)) {
-                        int totalOut = graph.getNeighbors(other).values().stream().mapToInt(i -> i).sum();
-                        sum += pr.get(other) / totalOut;
-                    }
+    /**
+     * 排行查询，spec 形如 "pagerank 10"、"in 10"、"out"、"tf 20"、"edges 10" 或 "next 单词 10"，
+     * k 省略时为 10. 格式错误时抛出 IllegalArgumentException.
+     */
+    public static String topK(String spec) {
+        String[] parts = spec.trim().split("\\s+");
+        String kind = parts[0].toLowerCase(Locale.ROOT);   // 关键字与语言环境无关
+        int wordArgs = kind.equals("next") ? 2 : 1;
+        if (kind.isEmpty() || parts.length < wordArgs || parts.length > wordArgs + 1) {
+            throw new IllegalArgumentException("排行格式：pagerank|in|out|tf [k]、edges [k] 或 next <单词> [k]");
+        }
+        int k = parts.length > wordArgs ? Integer.parseInt(parts[wordArgs]) : 10;
+        if (k <= 0) {
+            throw new IllegalArgumentException("k 必须为正数：" + k);
+        }
+        CsrGraph g = graph.freeze();
+        StringBuilder result = new StringBuilder();
+        int rank = 0;
+        switch (kind) {
+            case "edges" -> {
+                for (int e : GraphRankings.heaviestEdges(g, k)) {
+                    result.append(++rank).append(". ").append(g.word(GraphRankings.source(g, e))).append(" -> ")
+                            .append(g.word(g.target(e))).append("  ").append(g.weight(e)).append('\n');
+                }
+            }
+            case "next" -> {
+                String word = parts[1].toLowerCase();
+                int u = g.id(word);
+                if (u < 0) {
+                    return "No \"" + word + "\" in the graph!";
+                }
+                for (int e : GraphRankings.topSuccessors(g, u, k)) {
+                    result.append(++rank).append(". ").append(word).append(" -> ").append(g.word(g.target(e)))
+                            .append("  ").append(g.weight(e)).append('\n');
+                }
+            }
+            default -> {
+                GraphRankings.Metric metric = GraphRankings.Metric.parse(kind);
+                if (metric == null) {
+                    throw new IllegalArgumentException("未知的排行指标：" + parts[0]);
+                }
+                double[] scores = metric == GraphRankings.Metric.PAGERANK ? currentPageRank().scores : null;
+                for (int u : GraphRankings.topWords(g, metric, scores, k)) {
+                    double score = GraphRankings.score(g, metric, scores, u);
+                    result.append(++rank).append(". ").append(g.word(u)).append("  ")
+                            .append(scores != null ? String.format("%.5f", score) : String.valueOf((long) score))
+                            .append('\n');
                 }
-
-                newPr.put(node, (1 - DAMPING_FACTOR) / N + DAMPING_FACTOR * sum + DAMPING_FACTOR * (danglingSum / N));
             }
-
-            pr = newPr;
         }
-
-        return pr.getOrDefault(word.toLowerCase(), 0.0);
+        return rank == 0 ? "没有可列出的结果\n" : result.toString();
     }
 
     // 随机游走
     public static String randomWalk() {
-        List<String> nodes = new ArrayList<>(graph.getNodes());
-        if (nodes.isEmpty()) return "图为空！";
+        CsrGraph g = graph.freeze();
+        if (g.nodeCount() == 0) return "图为空！";
 
         Random rand = new Random();
-        String curr = nodes.get(rand.nextInt(nodes.size()));
-        Set<String> visitedEdges = new HashSet<>();
-        StringBuilder result = new StringBuilder(curr);
+        int curr = rand.nextInt(g.nodeCount());
+        RandomWalkEngine.VisitedEdges visitedEdges = new RandomWalkEngine.VisitedEdges();
+        StringBuilder result = new StringBuilder(g.word(curr));
 
         Scanner scanner = new Scanner(System.in);
         System.out.println("开始随机游走（每秒走一步），按 Enter 停止：");
 
         while (true) {
-            Map<String, Integer> neighbors = graph.getNeighbors(curr);
-            if (neighbors.isEmpty()) break;
+            int degree = g.outDegree(curr);
+            if (degree == 0) break;
 
-            List<String> choices = new ArrayList<>(neighbors.keySet());
-            String next = choices.get(rand.nextInt(choices.size()));
-            String edge = curr + "->" + next;
+            int next = g.target(g.outStart(curr) + rand.nextInt(degree));
+            long edge = EdgeCounter.key(curr, next);
 
-            if (visitedEdges.contains(edge)) break;
+            if (!visitedEdges.add(edge)) break;
 
-            visitedEdges.add(edge);
             curr = next;
-            result.append(" ").append(curr);
-            System.out.println("当前位置: " + curr);
+            result.append(" ").append(g.word(curr));
+            System.out.println("当前位置: " + g.word(curr));
 
             // 等待 1 秒
             try {
@@ -459,37 +941,115 @@ public class TextGraphApp {
     }
 
 
+    /**
+     * 批量随机游走：并行执行 walks 次游走，每行一条写入 output，返回走过的总边数.
+     * 相同的图与种子得到相同的输出，与线程数无关.
+     *
+     * @param weighted 为 true 时按边权重选择后继，否则均匀选择
+     */
+    public static long generateRandomWalks(Path output, long walks, boolean weighted, long seed,
+                                           int threads, int maxSteps) throws IOException {
+        CsrGraph g = graph.freeze();
+        RandomWalkEngine engine = walkEngine;
+        if (engine == null || engine.graph() != g || engine.weighted() != weighted) {
+            engine = new RandomWalkEngine(g, weighted);    // 别名表随图缓存
+            walkEngine = engine;
+        }
+        long start = Metrics.start();
+        long steps = engine.run(output, walks, seed, threads, maxSteps, System.out);
+        Metrics.stop(Metrics.Op.RANDOM_WALK, start);
+        return steps;
+    }
+
     public static void exportGraphToDot(String dotFilePath) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(dotFilePath))) {
-            writer.write("digraph G {\n");
-            for (String from : graph.getNodes()) {
-                Map<String, Integer> edges = graph.getNeighbors(from);
-                for (Map.Entry<String, Integer> entry : edges.entrySet()) {
-                    String to = entry.getKey();
-                    int weight = entry.getValue();
-                    writer.write(String.format("    \"%s\" -> \"%s\" [label=\"%d\"];\n", from, to, weight));
-                }
-            }
-            writer.write("}\n");
-            System.out.println("已导出为 DOT 文件：" + dotFilePath);
+        writeDot(DotExporter.select(graph.freeze(), DotExporter.Filter.ALL, null), dotFilePath);
+    }
+
+    // 把子图流式写成 DOT 文件，成功时返回 true
+    private static boolean writeDot(DotExporter.Selection selection, String dotFilePath) {
+        long start = Metrics.start();
+        try (Writer writer = Files.newBufferedWriter(Paths.get(dotFilePath), StandardCharsets.UTF_8)) {
+            long edges = selection.write(writer);
+            writer.flush();
+            Metrics.stop(Metrics.Op.DOT_EXPORT, start);
+            System.out.println("已导出为 DOT 文件：" + dotFilePath
+                    + "（" + selection.nodeCount() + " 个节点，" + edges + " 条边）");
+            return true;
         } catch (IOException e) {
             System.err.println("导出 DOT 文件失败：" + e.getMessage());
+            return false;
         }
     }
+
+    // 同步渲染图像，最多等待 RENDER_TIMEOUT_SECONDS 秒
     public static void generateGraphImage(String dotFilePath, String outputPath) {
         try {
-            // 调用系统命令执行 dot -> png 转换
-            Process process = new ProcessBuilder("dot", "-Tpng", dotFilePath, "-o", outputPath).start();
-            process.waitFor();
-            System.out.println("图像文件已生成：" + outputPath);
-        } catch (IOException | InterruptedException e) {
+            DotRenderer.Job job = DotRenderer.start(Paths.get(dotFilePath), Paths.get(outputPath),
+                    graph.nodeCount(), RENDER_TIMEOUT_SECONDS);
+            System.out.println(awaitRendering(job, RENDER_TIMEOUT_SECONDS));
+        } catch (IOException e) {
+            System.err.println("生成图像失败：" + e.getMessage());
+        }
+    }
+
+    // 在后台渲染图像，之前尚未完成的渲染会先被取消；完成、失败或超时时打印结果
+    private static void renderInBackground(String dotFilePath, String outputPath, int nodes) {
+        cancelRendering();
+        try {
+            DotRenderer.Job job = DotRenderer.start(Paths.get(dotFilePath), Paths.get(outputPath),
+                    nodes, RENDER_TIMEOUT_SECONDS);
+            rendering = job;
+            System.out.println("正在后台生成图像（超时 " + RENDER_TIMEOUT_SECONDS + " 秒，可用菜单 11 取消）……");
+            job.done.whenComplete((path, error) -> System.out.println(renderMessage(path, error, RENDER_TIMEOUT_SECONDS)));
+        } catch (IOException e) {
             System.err.println("生成图像失败：" + e.getMessage());
         }
     }
+
+    /**
+     * 取消正在进行的后台渲染，返回是否确实取消了一个任务.
+     */
+    public static boolean cancelRendering() {
+        DotRenderer.Job job = rendering;
+        rendering = null;
+        return job != null && job.cancel();
+    }
+
+    private static String awaitRendering(DotRenderer.Job job, long timeout) {
+        try {
+            return renderMessage(job.done.get(), null, timeout);
+        } catch (ExecutionException e) {
+            job.cancel();   // 超时回调可能还没来得及结束进程，这里同步结束，避免留下孤儿进程
+            return renderMessage(null, e.getCause(), timeout);
+        } catch (CancellationException e) {
+            return renderMessage(null, e, timeout);
+        } catch (InterruptedException e) {
+            job.cancel();
+            Thread.currentThread().interrupt();
+            return renderMessage(null, new CancellationException(), timeout);
+        }
+    }
+
+    private static String renderMessage(Path image, Throwable error, long timeout) {
+        if (error == null) {
+            return "图像文件已生成：" + image;
+        }
+        if (error instanceof CancellationException) {
+            return "已取消图像渲染";
+        }
+        if (error instanceof TimeoutException) {
+            return "图像渲染超时（" + timeout + " 秒），已结束 dot 进程；可以缩小筛选范围后重试";
+        }
+        return "生成图像失败：" + error.getMessage();
+    }
     // 添加到 TextGraphApp.java 的类中
     public static void resetGraph() {
-        graph.getAdjList().clear();
-        corpusWords.clear();
+        graph.clear();
+        pageRankCache = null;
+        localPageRank = null;
+        walkEngine = null;
+        reachabilityCache = null;
+        PATH_CACHE.clear();
     }
 
 }
@@ -0,0 +1,94 @@
+package org.example;
+
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * 用大小为 k 的最小堆从 n 个候选中选出得分最高的 k 个，时间 O(n log k)，额外空间 O(k).
+ * 得分相同时编号小的优先，因此结果是确定的.
+ */
+final class TopK {
+
+    private TopK() {
+    }
+
+    /**
+     * 在 0..n-1 中满足 include 的编号里选出 key 最大的至多 k 个，按得分从高到低返回.
+     *
+     * @param include 为 null 时所有编号都参与
+     */
+    static int[] select(int n, IntPredicate include, IntToDoubleFunction key, int k) {
+        if (k <= 0) {
+            return new int[0];
+        }
+        int[] heap = new int[Math.min(k, n)];
+        double[] keys = new double[heap.length];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            if (include != null && !include.test(i)) {
+                continue;
+            }
+            double value = key.applyAsDouble(i);
+            if (size < heap.length) {
+                heap[size] = i;
+                keys[size] = value;
+                siftUp(heap, keys, size++);
+            } else if (better(value, i, keys[0], heap[0])) {
+                heap[0] = i;
+                keys[0] = value;
+                siftDown(heap, keys, size);
+            }
+        }
+        // 逐个弹出堆顶（当前最差者）从后往前填，得到从高到低的顺序
+        int[] result = new int[size];
+        for (int last = size - 1; last >= 0; last--) {
+            result[last] = heap[0];
+            heap[0] = heap[last];
+            keys[0] = keys[last];
+            siftDown(heap, keys, last);
+        }
+        return result;
+    }
+
+    // a 是否排在 b 之前：得分更高，或得分相同而编号更小
+    private static boolean better(double keyA, int a, double keyB, int b) {
+        return keyA > keyB || (keyA == keyB && a < b);
+    }
+
+    private static void siftUp(int[] heap, double[] keys, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!better(keys[parent], heap[parent], keys[i], heap[i])) {
+                break;
+            }
+            swap(heap, keys, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, double[] keys, int size) {
+        int i = 0;
+        while (true) {
+            int worst = i;
+            for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++) {
+                if (better(keys[worst], heap[worst], keys[child], heap[child])) {
+                    worst = child;
+                }
+            }
+            if (worst == i) {
+                return;
+            }
+            swap(heap, keys, i, worst);
+            i = worst;
+        }
+    }
+
+    private static void swap(int[] heap, double[] keys, int i, int j) {
+        int h = heap[i];
+        heap[i] = heap[j];
+        heap[j] = h;
+        double k = keys[i];
+        keys[i] = keys[j];
+        keys[j] = k;
+    }
+}
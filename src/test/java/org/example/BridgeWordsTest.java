@@ -0,0 +1,71 @@
+package org.example;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BridgeWordsTest {
+
+    @Test
+    public void testSameBridgesAsNeighborScan() throws IOException {
+        Graph graph = new Graph();
+        GraphLoader.load(Paths.get("Cursed Be The Treasure.txt"), graph);
+        CsrGraph g = graph.freeze();
+        int the = g.id("the");
+        int of = g.id("of");
+
+        Random rand = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            // 混合高频词与随机词，覆盖两侧长度悬殊的情况
+            int u = i % 4 == 0 ? of : rand.nextInt(g.nodeCount());
+            int v = i % 3 == 0 ? the : rand.nextInt(g.nodeCount());
+            assertArrayEquals(naive(g, u, v), BridgeWords.of(g, u, v));
+        }
+    }
+
+    @Test
+    public void testBatchKeepsInputOrder() throws IOException {
+        Graph graph = new Graph();
+        graph.addEdge("a", "x");
+        graph.addEdge("x", "b");
+        Path input = Files.createTempFile("pairs", ".txt");
+        Path output = Files.createTempFile("bridges", ".txt");
+        try {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 20000; i++) {
+                lines.add(i % 2 == 0 ? "a b" : "B  z");
+            }
+            lines.add("a");
+            Files.write(input, lines);
+            assertEquals(lines.size(), BatchBridgeQuery.run(graph.freeze(), input, output, 4, null));
+
+            List<String> results = Files.readAllLines(output);
+            assertEquals(lines.size(), results.size());
+            assertEquals("The bridge words from \"a\" to \"b\" are: x.", results.get(0));
+            assertEquals("No \"z\" in the graph!", results.get(19999));
+            assertTrue(results.get(20000).contains("a"));
+        } finally {
+            Files.delete(input);
+            Files.delete(output);
+        }
+    }
+
+    // 原先的做法：逐个检查 u 的后继是否连向 v
+    private static int[] naive(CsrGraph g, int u, int v) {
+        List<Integer> bridges = new ArrayList<>();
+        for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+            if (g.edgeWeight(g.target(e), v) > 0) {
+                bridges.add(g.target(e));
+            }
+        }
+        return bridges.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
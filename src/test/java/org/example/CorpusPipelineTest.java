@@ -0,0 +1,112 @@
+package org.example;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class CorpusPipelineTest {
+
+    private Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("corpus");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> walk = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) walk.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    private Path write(String name, String text) throws IOException {
+        Path file = dir.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    public void testMatchesSequentialLoadWithoutCrossDocumentEdges() throws IOException {
+        List<Path> files = new ArrayList<>();
+        // 文件末尾没有换行：顺序拼接会产生 alpha -> beta 这样的跨文档边
+        files.add(write("a.txt", "the quick brown fox\njumps over the lazy alpha"));
+        files.add(write("b.txt", "beta the quick red fox"));
+        files.add(write("sub/c.txt", "Lazy dogs sleep; the QUICK fox runs"));
+        for (int i = 0; i < 20; i++) {
+            files.add(write("sub/more-" + i + ".txt", "the lazy fox " + i + " and the quick dog"));
+        }
+
+        Graph expected = new Graph();
+        for (Path file : files) {
+            GraphLoader.load(file, expected);
+        }
+        CsrGraph e = expected.freeze();
+
+        for (CorpusPipeline pipeline : new CorpusPipeline[]{new CorpusPipeline(1, 1, 1, 1),
+                new CorpusPipeline(2, 3, 2, 2)}) {
+            Graph actual = new Graph();
+            CorpusPipeline.Report report = pipeline.load(CorpusPipeline.expand(dir.toString()), actual);
+
+            assertEquals(expected.getAdjList(), actual.getAdjList());
+            assertEquals(0, actual.getEdgeWeight("alpha", "beta"));
+            CsrGraph g = actual.snapshot();
+            assertEquals(e.tokenCount(), g.tokenCount());
+            for (int u = 0; u < e.nodeCount(); u++) {
+                assertEquals(e.word(u), e.termCount(u), g.termCount(g.id(e.word(u))));
+            }
+
+            assertEquals(files.size(), report.files);
+            assertEquals(e.tokenCount(), report.total.tokens);
+            assertEquals(files.size(), report.read.items.get());
+            assertEquals(files.size(), report.build.items.get());
+            assertEquals(report.read.bytes.get(), report.tokenize.bytes.get());
+            assertEquals(files.size(), report.documents.puts.get());
+            assertTrue(report.documents.maxOccupancy.get() <= pipeline.queueCapacity);
+            assertTrue(report.toString().contains("分词→建图"));
+        }
+    }
+
+    @Test
+    public void testExpandGlobAndErrors() throws IOException {
+        write("a.txt", "x y");
+        write("b.md", "x y");
+        write("sub/c.txt", "x y");
+
+        assertEquals(List.of(dir.resolve("a.txt")), CorpusPipeline.expand(dir + "/*.txt"));
+        assertEquals(List.of(dir.resolve("a.txt"), dir.resolve("sub/c.txt")),
+                CorpusPipeline.expand(dir + "/**.txt"));
+        assertEquals(3, CorpusPipeline.expand(dir.toString()).size());
+        assertTrue(CorpusPipeline.isMultiFile(dir.toString()));
+        assertFalse(CorpusPipeline.isMultiFile(dir.resolve("a.txt").toString()));
+
+        try {
+            CorpusPipeline.expand(dir + "/*.csv");
+            fail();
+        } catch (NoSuchFileException expected) {
+            // 预期异常
+        }
+        List<Path> missing = List.of(dir.resolve("a.txt"), dir.resolve("gone.txt"));
+        try {
+            new CorpusPipeline(1, 1, 1, 1).load(missing, new Graph());
+            fail();
+        } catch (NoSuchFileException expected) {
+            assertTrue(expected.getMessage().contains("gone.txt"));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.example;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+public class DotExporterTest {
+
+    // a -> b (5), b -> c (1), c -> a (2), c -> d (3), d -> e (1)，另有孤立的 x -> y (4)
+    private static CsrGraph sample() {
+        Graph graph = new Graph();
+        String[][] edges = {{"a", "b", "5"}, {"b", "c", "1"}, {"c", "a", "2"}, {"c", "d", "3"}, {"d", "e", "1"},
+                {"x", "y", "4"}};
+        for (String[] e : edges) {
+            graph.addEdge(graph.intern(e[0]), graph.intern(e[1]), Integer.parseInt(e[2]));
+        }
+        return graph.freeze();
+    }
+
+    private static String write(DotExporter.Selection selection) throws IOException {
+        StringWriter out = new StringWriter();
+        selection.write(out);
+        return out.toString();
+    }
+
+    @Test
+    public void testFullExportMatchesFormat() throws IOException {
+        CsrGraph g = sample();
+        StringBuilder expected = new StringBuilder("digraph G {\n");
+        for (int u = 0; u < g.nodeCount(); u++) {
+            for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+                expected.append(String.format("    \"%s\" -> \"%s\" [label=\"%d\"];\n",
+                        g.word(u), g.word(g.target(e)), g.weight(e)));
+            }
+        }
+        expected.append("}\n");
+        DotExporter.Selection all = DotExporter.select(g, DotExporter.Filter.ALL, null);
+        assertEquals(expected.toString(), write(all));
+        assertEquals(6, all.edgeCount());
+        assertEquals(7, all.nodeCount());
+    }
+
+    @Test
+    public void testFilters() throws IOException {
+        CsrGraph g = sample();
+
+        DotExporter.Selection heavy = DotExporter.select(g, DotExporter.Filter.parse("top=2 by=weight"), null);
+        assertEquals("digraph G {\n    \"a\" -> \"b\" [label=\"5\"];\n    \"x\" -> \"y\" [label=\"4\"];\n}\n",
+                write(heavy));
+
+        DotExporter.Selection min = DotExporter.select(g, DotExporter.Filter.parse("min=3"), null);
+        assertEquals(3, min.edgeCount());
+
+        // a 周围一步（忽略方向）：b 与 c
+        DotExporter.Selection ego = DotExporter.select(g, DotExporter.Filter.parse("ego=A"), null);
+        assertEquals(3, ego.nodeCount());
+        assertEquals(3, ego.edgeCount());
+        assertTrue(write(ego).contains("\"c\" -> \"a\""));
+        assertFalse(write(ego).contains("\"d\""));
+
+        // 度数最高的两个节点是 c（3）和 a（2），二者之间只有 c -> a
+        DotExporter.Selection top = DotExporter.select(g, DotExporter.Filter.parse("top=2"), null);
+        assertEquals("digraph G {\n    \"c\" -> \"a\" [label=\"2\"];\n}\n", write(top));
+
+        double[] scores = new double[g.nodeCount()];
+        scores[g.id("e")] = 0.9;
+        scores[g.id("x")] = 0.5;
+        DotExporter.Selection rank = DotExporter.select(g, DotExporter.Filter.parse("top=2 by=pagerank"), scores);
+        // e 与 x 之间没有边，仍然作为节点出现
+        assertEquals("digraph G {\n    \"e\";\n    \"x\";\n}\n", write(rank));
+    }
+
+    @Test
+    public void testEscapesQuotesAndRejectsBadFilters() throws IOException {
+        Graph graph = new Graph();
+        graph.addEdge("say \"hi\"", "back\\slash");
+        String dot = write(DotExporter.select(graph.freeze(), DotExporter.Filter.ALL, null));
+        assertTrue(dot.contains("\"say \\\"hi\\\"\" -> \"back\\\\slash\""));
+
+        for (String bad : new String[]{"top", "top=x", "by=size", "color=red", "min=0"}) {
+            try {
+                DotExporter.Filter.parse(bad);
+                fail(bad);
+            } catch (IllegalArgumentException expected) {
+                // 预期异常
+            }
+        }
+        try {
+            DotExporter.select(sample(), DotExporter.Filter.parse("ego=zzz"), null);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("zzz"));
+        }
+    }
+}
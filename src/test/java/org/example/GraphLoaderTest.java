@@ -0,0 +1,129 @@
+package org.example;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Scanner;
+
+import static org.junit.Assert.*;
+
+public class GraphLoaderTest {
+
+    private static final String TEXT = "To @ explore strange new worlds,\r\n"
+            + "To seek out NEW life and new-thinkings and civilizations?\n"
+            + "\n   don't\tstop\u000Bbelieving \u2028 Kelvin \u212Aeeps \u0130stanbul\u0085caf\u00E9 ok\r"
+            + "last line without newline";
+
+    @Test
+    public void testSameGraphAsRegexLoader() throws IOException {
+        Path file = Files.createTempFile("corpus", ".txt");
+        try {
+            Files.write(file, TEXT.getBytes(StandardCharsets.UTF_8));
+            Graph actual = new Graph();
+            GraphLoader.Stats stats = GraphLoader.load(file, actual);
+
+            Graph expected = new Graph();
+            Map<String, Integer> expectedCounts = new HashMap<>();
+            long expectedTokens = regexLoad(TEXT, expected, expectedCounts);
+
+            assertEquals(expectedTokens, stats.tokens);
+            CsrGraph g = actual.freeze();
+            assertEquals(expectedTokens, g.tokenCount());
+            for (int u = 0; u < g.nodeCount(); u++) {
+                assertEquals(g.word(u), (int) expectedCounts.get(g.word(u)), g.termCount(u));
+            }
+            assertEquals(expected.getNodes(), actual.getNodes());
+            assertEquals(expected.getAdjList(), actual.getAdjList());
+            assertEquals(2, actual.getEdgeWeight("new", "life") + actual.getEdgeWeight("to", "explore"));
+            assertTrue(actual.containsNode("dont"));
+            assertTrue(actual.containsNode("keeps"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testParallelMatchesSequential() throws IOException {
+        Path file = Files.createTempFile("corpus", ".txt");
+        try {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 200; i++) {
+                text.append(TEXT).append(i % 3 == 0 ? " \n " : " ");
+            }
+            Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+            assertParallelMatchesSequential(file);
+            assertParallelMatchesSequential(Paths.get("Cursed Be The Treasure.txt"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void assertParallelMatchesSequential(Path file) throws IOException {
+        Graph sequential = new Graph();
+        GraphLoader.Stats expected = GraphLoader.load(file, sequential);
+
+        // 块切得很小，使大量单词和边跨越块边界
+        Graph parallel = new Graph();
+        GraphLoader.Stats stats = GraphLoader.loadParallel(file, parallel, 4, 37);
+
+        assertEquals(expected.tokens, stats.tokens);
+        assertEquals(sequential.getNodes(), parallel.getNodes());
+        assertEquals(sequential.getAdjList(), parallel.getAdjList());
+        CsrGraph s = sequential.freeze();
+        CsrGraph p = parallel.freeze();
+        assertEquals(s.tokenCount(), p.tokenCount());
+        for (int u = 0; u < s.nodeCount(); u++) {
+            assertEquals(s.word(u), s.termCount(u), p.termCount(p.id(s.word(u))));
+        }
+    }
+
+    @Test
+    public void testTermCountsIncludeWordsBeforeTheyBecomeNodes() throws IOException {
+        Path file = Files.createTempFile("corpus", ".txt");
+        try {
+            // solo 先独占两行（此时还不是节点），之后才出现在边中；alone 始终独占一行，不成为节点
+            Files.write(file, "solo\nSolo\nalone\nthe solo act\nthe end".getBytes(StandardCharsets.UTF_8));
+            Graph graph = new Graph();
+            GraphLoader.load(file, graph);
+            CsrGraph g = graph.freeze();
+            assertEquals(3, g.termCount(g.id("solo")));
+            assertEquals(2, g.termCount(g.id("the")));
+            assertEquals(-1, g.id("alone"));
+            assertEquals(8, g.tokenCount());
+
+            // 追加时词频继续累加
+            GraphLoader.load(file, graph);
+            g = graph.freeze();
+            assertEquals(6, g.termCount(g.id("solo")));
+            assertEquals(16, g.tokenCount());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    // 原先基于 Scanner + 正则的建图方式，作为对照；counts 记录各单词出现次数，返回单词总数
+    private static long regexLoad(String text, Graph graph, Map<String, Integer> counts) {
+        long tokens = 0;
+        Scanner scanner = new Scanner(text);
+        while (scanner.hasNextLine()) {
+            String line = scanner.nextLine().toLowerCase().replaceAll("[^a-z\\s]", "");
+            String[] words = line.trim().split("\\s+");
+            for (int i = 0; i < words.length - 1; i++) {
+                graph.addEdge(words[i], words[i + 1]);
+            }
+            for (String w : words) {
+                if (!w.isEmpty()) {
+                    counts.merge(w, 1, Integer::sum);
+                    tokens++;
+                }
+            }
+        }
+        return tokens;
+    }
+}
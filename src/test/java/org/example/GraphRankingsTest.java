@@ -0,0 +1,105 @@
+package org.example;
+
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.IntToDoubleFunction;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class GraphRankingsTest {
+
+    private static CsrGraph randomGraph(long seed) {
+        Random random = new Random(seed);
+        Graph graph = new Graph();
+        for (int i = 0; i < 400; i++) {
+            graph.intern("w" + i);
+        }
+        for (int i = 0; i < 3000; i++) {
+            // 权重取值范围小，制造大量并列，检验并列时按编号排序
+            graph.addEdge(random.nextInt(300), random.nextInt(400), 1 + random.nextInt(4));
+        }
+        int[] ids = new int[400];
+        String[] words = new String[400];
+        int[] counts = new int[400];
+        for (int i = 0; i < 400; i++) {
+            ids[i] = i;
+            words[i] = "w" + i;
+            counts[i] = random.nextInt(5);
+        }
+        graph.addTermCounts(ids, words, counts, 400, IntStream.of(counts).sum());
+        return graph.freeze();
+    }
+
+    // 对全部编号完整排序后取前 k 个，作为对照
+    private static int[] sortAll(int n, IntToDoubleFunction key, int k) {
+        return IntStream.range(0, n).boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> -key.applyAsDouble(i)).thenComparingInt(i -> i))
+                .limit(k).mapToInt(Integer::intValue).toArray();
+    }
+
+    @Test
+    public void testMatchesFullSort() {
+        CsrGraph g = randomGraph(7);
+        double[] pageRank = new PageRankEngine(0.85, 1e-10, 100, true).compute(g).scores;
+        for (GraphRankings.Metric metric : GraphRankings.Metric.values()) {
+            assertArrayEquals(metric.name(),
+                    sortAll(g.nodeCount(), u -> GraphRankings.score(g, metric, pageRank, u), 25),
+                    GraphRankings.topWords(g, metric, pageRank, 25));
+        }
+        assertArrayEquals(sortAll(g.edgeCount(), g::weight, 40), GraphRankings.heaviestEdges(g, 40));
+        assertEquals(g.nodeCount(), GraphRankings.topWords(g, GraphRankings.Metric.TF, null, 10_000).length);
+
+        for (int u = 0; u < g.nodeCount(); u += 37) {
+            int start = g.outStart(u);
+            int[] expected = sortAll(g.outDegree(u), i -> g.weight(start + i), 3);
+            int[] actual = GraphRankings.topSuccessors(g, u, 3);
+            assertEquals(expected.length, actual.length);
+            for (int i = 0; i < actual.length; i++) {
+                assertEquals(start + expected[i], actual[i]);
+            }
+        }
+        // 包括出度为 0 的节点在内，边下标都能找回起点
+        for (int u = 0; u < g.nodeCount(); u++) {
+            for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+                assertEquals(u, GraphRankings.source(g, e));
+            }
+        }
+    }
+
+    @Test
+    public void testMetricNamesIgnoreDefaultLocale() {
+        Locale before = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));     // 土耳其语中 "IN" 小写为 "ın"
+        try {
+            assertEquals(GraphRankings.Metric.IN_DEGREE, GraphRankings.Metric.parse("IN"));
+            assertEquals(GraphRankings.Metric.TF, GraphRankings.Metric.parse("TF"));
+        } finally {
+            Locale.setDefault(before);
+        }
+    }
+
+    @Test
+    public void testTopKCommand() {
+        TextGraphApp.resetGraph();
+        TextGraphApp.graph.addEdge("a", "b");
+        TextGraphApp.graph.addEdge("a", "b");
+        TextGraphApp.graph.addEdge("a", "c");
+        TextGraphApp.graph.addEdge("c", "b");
+
+        assertEquals("1. a -> b  2\n2. a -> c  1\n", TextGraphApp.topK("edges 2"));
+        assertEquals("1. b  2\n", TextGraphApp.topK("in 1"));
+        assertEquals("1. a -> b  2\n", TextGraphApp.topK("next A 1"));
+        assertEquals("No \"z\" in the graph!", TextGraphApp.topK("next z"));
+        assertTrue(TextGraphApp.topK("pagerank").startsWith("1. b  "));
+        try {
+            TextGraphApp.topK("depth 3");
+            fail();
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("depth"));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.example;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.*;
+
+public class GraphSnapshotTest {
+
+    @Test
+    public void testRoundTripMatchesFreshBuild() throws IOException {
+        Graph built = new Graph();
+        GraphLoader.Stats stats = GraphLoader.load(Paths.get("Cursed Be The Treasure.txt"), built);
+        CsrGraph expected = built.freeze();
+        int[] tf = expected.termCounts();
+
+        Path file = Files.createTempFile("graph", ".tgs");
+        try {
+            long bytes = GraphSnapshot.save(expected, tf, stats.tokens, file);
+            assertEquals(Files.size(file), bytes);
+            assertTrue(GraphSnapshot.isSnapshot(file));
+
+            Graph loaded = new Graph();
+            loaded.addEdge("stale", "content");
+            GraphSnapshot.Contents contents = GraphSnapshot.load(file, loaded);
+            CsrGraph actual = loaded.freeze();
+
+            assertEquals(stats.tokens, contents.tokens);
+            assertArrayEquals(tf, contents.termCounts);
+            // 词频与单词总数随快照恢复
+            assertEquals(stats.tokens, expected.tokenCount());
+            assertArrayEquals(tf, actual.termCounts());
+            assertEquals(stats.tokens, actual.tokenCount());
+            assertEquals(expected.nodeCount(), actual.nodeCount());
+            assertEquals(expected.edgeCount(), actual.edgeCount());
+            for (int u = 0; u < expected.nodeCount(); u++) {
+                assertEquals(expected.word(u), actual.word(u));
+                assertEquals(expected.outStart(u), actual.outStart(u));
+                assertEquals(expected.inStart(u), actual.inStart(u));
+            }
+            for (int e = 0; e < expected.edgeCount(); e++) {
+                assertEquals(expected.target(e), actual.target(e));
+                assertEquals(expected.weight(e), actual.weight(e));
+                assertEquals(expected.source(e), actual.source(e));
+            }
+            assertEquals(built.getAdjList(), loaded.getAdjList());
+
+            // 加载即发布；只加新单词时重建的快照仍包含恢复的全部边
+            assertSame(actual, loaded.freeze());
+            loaded.intern("unseen");
+            assertEquals(expected.edgeCount(), loaded.freeze().edgeCount());
+            assertEquals(built.getAdjList(), loaded.getAdjList());
+
+            // 加载后的图仍可继续修改
+            int before = loaded.getEdgeWeight("the", "treasure");
+            loaded.addEdge("the", "treasure");
+            assertEquals(before + 1, loaded.getEdgeWeight("the", "treasure"));
+            assertEquals(before + 1, loaded.freeze().edgeWeight(loaded.idOf("the"), loaded.idOf("treasure")));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testRejectsCorruptedSnapshot() throws IOException {
+        Graph graph = new Graph();
+        graph.addEdge("a", "b");
+        graph.addEdge("b", "c");
+        Path file = Files.createTempFile("graph", ".tgs");
+        try {
+            GraphSnapshot.save(graph.freeze(), new int[]{1, 1, 1}, 3, file);
+            byte[] data = Files.readAllBytes(file);
+            data[data.length - 12] ^= 1;    // 改动一个词频字节
+            Files.write(file, data);
+            try {
+                GraphSnapshot.load(file, new Graph());
+                fail("损坏的快照应当被拒绝");
+            } catch (IOException expected) {
+                assertTrue(expected.getMessage().contains("校验和"));
+            }
+
+            Files.write(file, "just some text".getBytes());
+            assertFalse(GraphSnapshot.isSnapshot(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
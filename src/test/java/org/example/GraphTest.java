@@ -0,0 +1,208 @@
+package org.example;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class GraphTest {
+
+    private Graph graph;
+
+    @Before
+    public void setUp() {
+        graph = new Graph();
+        graph.addEdge("a", "b");
+        graph.addEdge("A", "b");   // 大小写统一，权重累加为 2
+        graph.addEdge("b", "c");
+    }
+
+    @Test
+    public void testEdgeWeightAndNeighbors() {
+        assertEquals(2, graph.getEdgeWeight("a", "b"));
+        assertEquals(0, graph.getEdgeWeight("b", "a"));
+        assertEquals(Integer.valueOf(1), graph.getNeighbors("b").get("c"));
+        assertTrue(graph.getNeighbors("c").isEmpty());
+        assertTrue(graph.getNeighbors("z").isEmpty());
+    }
+
+    @Test
+    public void testContainsTargetOnlyNode() {
+        assertTrue(graph.containsNode("c"));
+        assertTrue(graph.containsNode("C"));
+        assertFalse(graph.containsNode("z"));
+        assertEquals(3, graph.getNodes().size());
+    }
+
+    @Test
+    public void testPredecessors() {
+        graph.addEdge("c", "b");
+        assertEquals(2, graph.getPredecessors("b").size());
+        assertEquals(Integer.valueOf(2), graph.getPredecessors("b").get("a"));
+        assertTrue(graph.getPredecessors("a").isEmpty());
+        assertTrue(graph.getPredecessors("z").isEmpty());
+    }
+
+    @Test
+    public void testFreezeAfterModification() {
+        CsrGraph before = graph.freeze();
+        assertSame(before, graph.freeze());   // 未修改时复用冻结结果
+
+        graph.addEdge("c", "a");
+        CsrGraph after = graph.freeze();
+        assertNotSame(before, after);
+        assertEquals(2, before.edgeCount());
+        assertEquals(3, after.edgeCount());
+        assertEquals(1, after.edgeWeight(after.id("c"), after.id("a")));
+    }
+
+    @Test
+    public void testSnapshotLagsUntilPublished() {
+        CsrGraph published = graph.freeze();
+        graph.addEdge("c", "d");
+        assertSame(published, graph.snapshot());    // 并发读取的快照在发布前不变
+        // 按单词的访问方法总能看到之前的修改
+        assertEquals(1, graph.getEdgeWeight("c", "d"));
+        assertTrue(graph.containsNode("d"));
+        assertNotSame(published, graph.snapshot());
+
+        graph.clear();  // 清空立即发布
+        assertEquals(0, graph.snapshot().nodeCount());
+    }
+
+    @Test
+    public void testTrackChanges() {
+        GraphDelta delta = graph.startTracking();
+        graph.addEdge("a", "b");
+        graph.addEdge("c", "d");
+        graph.addEdge("c", "d");
+        graph.stopTracking();
+        graph.addEdge("d", "e");   // 停止记录后的修改不计入
+
+        assertEquals(1, delta.newNodes());
+        assertEquals(1, delta.newEdges());
+        assertEquals(2, delta.changedEdges());
+        assertEquals(2, delta.addedWeight(graph.idOf("c"), graph.idOf("d")));
+        assertArrayEquals(new int[]{graph.idOf("a"), graph.idOf("b"), graph.idOf("c"), graph.idOf("d")},
+                delta.changedNodes());
+    }
+
+    @Test
+    public void testConcurrentWritersAndLockFreeReaders() throws InterruptedException {
+        Graph concurrent = new Graph();
+        int writers = 4;
+        int batches = 200;
+        int batchSize = 50;
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        // 读线程：任何发布出来的快照中，总权重都必须是整批的倍数
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                CsrGraph g = concurrent.snapshot();
+                long total = 0;
+                int shared = g.id("shared");
+                for (int u = 0; u < g.nodeCount(); u++) {
+                    for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+                        total += u == shared ? 0 : g.weight(e);   // 单独加入的边不计
+                    }
+                }
+                if (total % batchSize != 0) {
+                    failure.set("快照中出现了不完整的批次：" + total);
+                }
+            }
+        });
+        reader.start();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            Thread t = new Thread(() -> {
+                for (int b = 0; b < batches; b++) {
+                    EdgeCounter batch = new EdgeCounter();
+                    for (int i = 0; i < batchSize; i++) {
+                        int from = concurrent.intern("w" + ((writer * 7 + b + i) % 30));
+                        int to = concurrent.intern("w" + ((b * 3 + i) % 30));
+                        batch.add(from, to, 1);
+                    }
+                    concurrent.addEdges(batch);
+                    concurrent.addEdge("shared", "edge");
+                    if (b % 20 == 0) {
+                        concurrent.freeze();   // 写入过程中不断发布快照
+                    }
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        done.set(true);
+        reader.join();
+
+        assertNull(failure.get());
+        assertEquals(writers * batches, concurrent.getEdgeWeight("shared", "edge"));
+        CsrGraph g = concurrent.freeze();
+        long total = 0;
+        for (int e = 0; e < g.edgeCount(); e++) {
+            total += g.weight(e);
+        }
+        assertEquals((long) writers * batches * (batchSize + 1), total);
+        assertEquals(32, concurrent.nodeCount());
+    }
+
+    @Test
+    public void testOffHeapMatchesHeap() throws IOException {
+        Graph heap = new Graph();
+        Graph offHeap = new Graph(true);
+        Random random = new Random(5);
+        // 足够多的边，使堆外边表经过多次扩容
+        for (int i = 0; i < 50_000; i++) {
+            String from = "w" + random.nextInt(2000);
+            String to = "w" + random.nextInt(2000);
+            heap.addEdge(from, to);
+            offHeap.addEdge(from, to);
+        }
+        CsrGraph expected = heap.freeze();
+        CsrGraph actual = offHeap.freeze();
+        assertTrue(offHeap.isOffHeap());
+        assertEquals(0, expected.offHeapBytes());
+        assertEquals(16L * actual.edgeCount(), actual.offHeapBytes());
+        assertEquals(heap.getAdjList(), offHeap.getAdjList());
+        for (int v = 0; v < 2000; v += 97) {
+            assertEquals(heap.getPredecessors("w" + v), offHeap.getPredecessors("w" + v));
+            assertEquals(heap.getEdgeWeight("w" + v, "w" + (v + 1)), offHeap.getEdgeWeight("w" + v, "w" + (v + 1)));
+        }
+        assertEquals(new PageRankEngine(0.85, 1e-10, 100, true).compute(expected).scores[7],
+                new PageRankEngine(0.85, 1e-10, 100, true).compute(actual).scores[7], 0.0);
+
+        // 快照恢复后仍在堆外，且继续加边
+        Path file = Files.createTempFile("graph", ".tgs");
+        try {
+            GraphSnapshot.save(actual, actual.termCounts(), actual.tokenCount(), file);
+            Graph restored = new Graph(true);
+            GraphSnapshot.load(file, restored);
+            assertTrue(restored.freeze().offHeapBytes() > 0);
+            assertEquals(offHeap.getAdjList(), restored.getAdjList());
+            restored.addEdge("w1", "w2");
+            assertEquals(offHeap.getEdgeWeight("w1", "w2") + 1, restored.getEdgeWeight("w1", "w2"));
+        } finally {
+            Files.delete(file);
+        }
+
+        offHeap.clear();
+        assertEquals(0, offHeap.freeze().edgeCount());
+        offHeap.addEdge("x", "y");
+        assertEquals(1, offHeap.getEdgeWeight("x", "y"));
+    }
+}
@@ -0,0 +1,86 @@
+package org.example;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class MetricsTest {
+
+    @After
+    public void tearDown() {
+        Metrics.setEnabled(true);
+        Metrics.reset();
+    }
+
+    @Test
+    public void testHistogramPercentilesWithinBucketError() {
+        Metrics.Histogram h = new Metrics.Histogram();
+        for (long v = 1; v <= 100_000; v++) {
+            h.record(v * 1000);
+        }
+        assertEquals(100_000, h.count());
+        assertEquals(100_000_000L, h.max());
+        long[] expected = {50_000_000L, 90_000_000L, 99_000_000L, 99_900_000L};
+        for (int i = 0; i < Metrics.QUANTILES.length; i++) {
+            long p = h.percentile(Metrics.QUANTILES[i]);
+            assertTrue(p >= expected[i]);
+            assertTrue(p <= expected[i] * 1.125);
+        }
+
+        // 每个值都落在上界不小于它、下一个桶上界大于它的桶里
+        for (long v : new long[]{0, 7, 8, 9, 15, 16, 1000, 123_456_789L, Long.MAX_VALUE}) {
+            int bucket = Metrics.Histogram.bucketOf(v);
+            assertTrue(Metrics.Histogram.upperBound(bucket) >= v);
+            if (bucket > 0) {
+                assertTrue(Metrics.Histogram.upperBound(bucket - 1) < v);
+            }
+        }
+    }
+
+    @Test
+    public void testDisabledRecordsNothing() {
+        Metrics.reset();
+        Metrics.setEnabled(false);
+        long start = Metrics.start();
+        Metrics.stop(Metrics.Op.BRIDGE_QUERY, start);
+        Metrics.pageRankIterations(12);
+        assertEquals(0, Metrics.latency(Metrics.Op.BRIDGE_QUERY).count());
+
+        Metrics.setEnabled(true);
+        Metrics.stop(Metrics.Op.BRIDGE_QUERY, Metrics.start());
+        assertEquals(1, Metrics.latency(Metrics.Op.BRIDGE_QUERY).count());
+    }
+
+    @Test
+    public void testExportFormats() throws IOException {
+        Metrics.reset();
+        TextGraphApp.resetGraph();
+        TextGraphApp.graph.addEdge("to", "explore");
+        TextGraphApp.graph.addEdge("explore", "strange");
+        TextGraphApp.queryBridgeWords("to", "strange");
+        Metrics.pageRankIterations(29);
+        CsrGraph g = TextGraphApp.graph.freeze();
+
+        StringBuilder prometheus = new StringBuilder();
+        Metrics.writePrometheus(prometheus, g);
+        String text = prometheus.toString();
+        assertTrue(text.contains("textgraph_operation_seconds_count{op=\"bridge_query\"} 1\n"));
+        assertTrue(text.contains("textgraph_operation_seconds{op=\"pagerank\",quantile=\"0.99\"} 0.0\n"));
+        assertTrue(text.contains("textgraph_graph_nodes 3\n"));
+        assertTrue(text.contains("textgraph_graph_edges 2\n"));
+        assertTrue(text.contains("textgraph_pagerank_last_iterations 29\n"));
+        for (String line : text.split("\n")) {
+            assertTrue(line, line.startsWith("#") || line.matches("[a-z_]+(\\{[^}]*\\})? \\S+"));
+        }
+
+        StringBuilder json = new StringBuilder();
+        Metrics.writeJson(json, g);
+        assertTrue(json.toString().contains("\"graph\": {\"nodes\": 3, \"edges\": 2"));
+        assertTrue(json.toString().contains("\"bridge_query\": {\"count\": 1"));
+        assertTrue(json.toString().contains("\"p999\""));
+        TextGraphApp.resetGraph();
+    }
+}
@@ -0,0 +1,111 @@
+package org.example;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+public class PageRankEngineTest {
+
+    @Test
+    public void testParallelMatchesSequential() throws IOException {
+        Graph graph = new Graph();
+        GraphLoader.load(Paths.get("Cursed Be The Treasure.txt"), graph);
+        CsrGraph g = graph.freeze();
+        int[] tf = g.termCounts();
+
+        PageRankEngine.Result sequential = new PageRankEngine(0.85, 1e-10, 100, false).compute(g, tf);
+        PageRankEngine.Result parallel = new PageRankEngine(0.85, 1e-10, 100, true).compute(g, tf);
+        assertArrayEquals(sequential.scores, parallel.scores, 0.0);
+        assertEquals(sequential.iterations, parallel.iterations);
+        assertTrue(sequential.residual <= 1e-10);
+    }
+
+    @Test
+    public void testConvergesOnCycle() {
+        Graph graph = new Graph();
+        graph.addEdge("a", "b");
+        graph.addEdge("b", "c");
+        graph.addEdge("c", "a");
+        PageRankEngine.Result result = new PageRankEngine(0.85, 1e-12, 1000, false)
+                .compute(graph.freeze(), new int[]{3, 0, 0});
+        assertTrue(result.iterations < 1000);
+        for (double score : result.scores) {
+            assertEquals(1.0 / 3, score, 1e-9);
+        }
+    }
+
+    @Test
+    public void testResultCachedUntilGraphChanges() {
+        TextGraphApp.resetGraph();
+        TextGraphApp.graph.addEdge("a", "b");
+        PageRankEngine.Result first = TextGraphApp.pageRank();
+        assertSame(first, TextGraphApp.pageRank());
+
+        TextGraphApp.graph.addEdge("b", "a");
+        assertNotSame(first, TextGraphApp.pageRank());
+        assertEquals(0.5, TextGraphApp.calPageRankWithTF("a"), 1e-9);
+        assertEquals(0.5, TextGraphApp.calPageRankWithTF("a", new ArrayList<>()), 1e-9);
+
+        // 词频变化同样使缓存失效
+        PageRankEngine.Result second = TextGraphApp.pageRank();
+        TextGraphApp.graph.addTermCounts(new int[]{-1}, new String[]{"a"}, new int[]{3}, 1, 3);
+        assertNotSame(second, TextGraphApp.pageRank());
+    }
+
+    @Test
+    public void testWarmStartAfterAppendMatchesColdStart() throws IOException {
+        Graph graph = new Graph();
+        GraphLoader.load(Paths.get("Cursed Be The Treasure.txt"), graph);
+        PageRankEngine engine = new PageRankEngine(0.85, 1e-10, 1000, false);
+        CsrGraph before = graph.freeze();
+        PageRankEngine.Result previous = engine.compute(before, new int[before.nodeCount()]);
+
+        GraphDelta delta = graph.startTracking();
+        GraphLoader.load(Paths.get("Easy Test.txt"), graph);
+        graph.stopTracking();
+        CsrGraph after = graph.freeze();
+        assertTrue(delta.changedEdges() > 0);
+        assertTrue(PageRankEngine.extendsGraph(before, after));
+
+        PageRankEngine.Result warm = engine.refresh(previous, after, delta);
+        PageRankEngine.Result cold = engine.compute(after, new int[after.nodeCount()]);
+        assertArrayEquals(cold.scores, warm.scores, 1e-9);
+        assertTrue(warm.iterations < cold.iterations);
+    }
+
+    @Test
+    public void testLocalEstimateWithinBound() throws IOException {
+        Graph graph = new Graph();
+        GraphLoader.load(Paths.get("Cursed Be The Treasure.txt"), graph);
+        CsrGraph g = graph.freeze();
+        PageRankEngine.Result exact = new PageRankEngine(0.85, 1e-12, 1000, false).compute(g, new int[g.nodeCount()]);
+
+        double epsilon = 1e-6;
+        LocalPageRank local = new LocalPageRank(g, 0.85, epsilon);
+        for (String word : new String[]{"the", "treasure", "disentangle", "whatever"}) {
+            LocalPageRank.Estimate estimate = local.estimate(word);
+            assertEquals(word, exact.score(word), estimate.score, 2 * epsilon);
+        }
+        assertNull(local.estimate("nosuchword"));
+    }
+
+    @Test
+    public void testLocalRejectsNonPositiveEpsilon() {
+        Graph graph = new Graph();
+        graph.addEdge("a", "b");
+        graph.addEdge("b", "a");    // 环：epsilon 为 0 或负数时推送不会结束
+        CsrGraph g = graph.freeze();
+        for (double epsilon : new double[]{0.0, -1.0, Double.NaN, Double.POSITIVE_INFINITY}) {
+            try {
+                new LocalPageRank(g, 0.85, epsilon);
+                fail("epsilon = " + epsilon);
+            } catch (IllegalArgumentException expected) {
+                // 预期异常
+            }
+        }
+    }
+}
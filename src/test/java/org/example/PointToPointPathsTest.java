@@ -0,0 +1,168 @@
+package org.example;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class PointToPointPathsTest {
+
+    @Test
+    public void testMatchesAllPairsReferenceOnRandomGraphs() {
+        Random random = new Random(7);
+        for (int round = 0; round < 30; round++) {
+            Graph graph = new Graph();
+            int nodes = 5 + random.nextInt(20);
+            int edges = nodes * (1 + random.nextInt(4));
+            for (int i = 0; i < edges; i++) {
+                int weight = 1 + random.nextInt(3);
+                for (int w = 0; w < weight; w++) {
+                    graph.addEdge("w" + random.nextInt(nodes), "w" + random.nextInt(nodes));
+                }
+            }
+            CsrGraph g = graph.freeze();
+            long[][] dist = floyd(g);
+            for (int s = 0; s < g.nodeCount(); s++) {
+                for (int t = 0; t < g.nodeCount(); t++) {
+                    PointToPointPaths.Result result = PointToPointPaths.search(g, s, t);
+                    if (dist[s][t] == INF) {
+                        assertFalse(result.reachable());
+                        continue;
+                    }
+                    assertEquals(dist[s][t], result.distance);
+
+                    Set<String> expected = new HashSet<>();
+                    collect(g, dist, s, t, new ArrayList<>(List.of(s)), expected);
+                    Set<String> actual = new HashSet<>();
+                    for (Iterator<int[]> it = result.paths(Long.MAX_VALUE); it.hasNext(); ) {
+                        assertTrue("路径重复", actual.add(Arrays.toString(it.next())));
+                    }
+                    assertEquals(expected, actual);
+                    assertEquals(expected.size(), result.pathCount());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCountsWithoutListingAndHonoursLimit() {
+        // 20 个菱形串联：共 2^20 条并列最短路径
+        Graph graph = new Graph();
+        for (int i = 0; i < 20; i++) {
+            graph.addEdge("n" + i, "a" + i);
+            graph.addEdge("n" + i, "b" + i);
+            graph.addEdge("a" + i, "n" + (i + 1));
+            graph.addEdge("b" + i, "n" + (i + 1));
+        }
+        CsrGraph g = graph.freeze();
+        PointToPointPaths.Result result = PointToPointPaths.search(g, g.id("n0"), g.id("n20"));
+        assertEquals(40, result.distance);
+        assertEquals(1L << 20, result.pathCount());
+
+        int listed = 0;
+        for (Iterator<int[]> it = result.paths(5); it.hasNext(); it.next()) {
+            listed++;
+        }
+        assertEquals(5, listed);
+    }
+
+    @Test
+    public void testDistancesBeyondIntRange() {
+        // 每条边权重 2^30，三步的距离超过 int 范围，仍应正确找到
+        Graph graph = new Graph();
+        for (String w : new String[]{"a", "b", "c", "d", "e"}) {
+            graph.intern(w);
+        }
+        graph.addEdge(0, 1, 1 << 30);
+        graph.addEdge(1, 2, 1 << 30);
+        graph.addEdge(2, 3, 1 << 30);
+        graph.addEdge(0, 4, Integer.MAX_VALUE);
+        graph.addEdge(4, 3, Integer.MAX_VALUE);
+        CsrGraph g = graph.freeze();
+        PointToPointPaths.Result result = PointToPointPaths.search(g, 0, 3);
+        assertEquals(3L << 30, result.distance);
+        assertEquals(1, result.pathCount());
+        assertArrayEquals(new int[]{0, 1, 2, 3}, result.paths(10).next());
+    }
+
+    @Test
+    public void testResultExpiresAfterNextSearchOnSameThread() {
+        Graph graph = new Graph();
+        graph.addEdge("a", "b");
+        graph.addEdge("b", "c");
+        CsrGraph g = graph.freeze();
+        PointToPointPaths.Result first = PointToPointPaths.search(g, g.id("a"), g.id("c"));
+        PointToPointPaths.search(g, g.id("b"), g.id("c"));
+        assertEquals(2, first.distance);    // 距离与条数仍可读
+        assertEquals(1, first.pathCount());
+        try {
+            first.paths(10).hasNext();
+            fail("工作数组已被下一次查询复用");
+        } catch (IllegalStateException expected) {
+            // 预期异常
+        }
+    }
+
+    @Test
+    public void testSameWordAndUnreachable() {
+        Graph graph = new Graph();
+        graph.addEdge("a", "b");
+        CsrGraph g = graph.freeze();
+        PointToPointPaths.Result self = PointToPointPaths.search(g, g.id("a"), g.id("a"));
+        assertEquals(0, self.distance);
+        assertEquals(1, self.pathCount());
+        assertArrayEquals(new int[]{g.id("a")}, self.paths(10).next());
+
+        PointToPointPaths.Result none = PointToPointPaths.search(g, g.id("b"), g.id("a"));
+        assertFalse(none.reachable());
+        assertEquals(0, none.pathCount());
+        assertFalse(none.paths(10).hasNext());
+    }
+
+    private static final long INF = Long.MAX_VALUE / 4;
+
+    // 全源最短距离（Floyd），作为对照
+    private static long[][] floyd(CsrGraph g) {
+        int n = g.nodeCount();
+        long[][] dist = new long[n][n];
+        for (int u = 0; u < n; u++) {
+            Arrays.fill(dist[u], INF);
+            dist[u][u] = 0;
+            for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+                dist[u][g.target(e)] = Math.min(dist[u][g.target(e)], g.weight(e));
+            }
+        }
+        for (int k = 0; k < n; k++) {
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    dist[i][j] = Math.min(dist[i][j], dist[i][k] + dist[k][j]);
+                }
+            }
+        }
+        return dist;
+    }
+
+    // 从 path 的末尾出发，只沿位于某条 s -> t 最短路径上的边向前走，收集全部最短路径
+    private static void collect(CsrGraph g, long[][] dist, int s, int t, List<Integer> path, Set<String> out) {
+        int u = path.get(path.size() - 1);
+        if (u == t) {
+            out.add(Arrays.toString(path.stream().mapToInt(Integer::intValue).toArray()));
+            return;
+        }
+        for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+            int v = g.target(e);
+            if (dist[s][u] + g.weight(e) == dist[s][v] && dist[s][v] + dist[v][t] == dist[s][t]) {
+                path.add(v);
+                collect(g, dist, s, t, path, out);
+                path.remove(path.size() - 1);
+            }
+        }
+    }
+}
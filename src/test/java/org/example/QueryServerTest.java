@@ -0,0 +1,206 @@
+package org.example;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class QueryServerTest {
+
+    private Graph graph;
+    private QueryServer server;
+
+    @Before
+    public void setUp() {
+        graph = new Graph();
+        String[] words = "to explore strange new worlds to seek out new life and new civilizations".split(" ");
+        for (int i = 0; i + 1 < words.length; i++) {
+            graph.addEdge(words[i], words[i + 1]);
+        }
+        graph.freeze();
+    }
+
+    @After
+    public void tearDown() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    private static final class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private Response get(String pathAndQuery) throws IOException {
+        URL url = new URL("http://127.0.0.1:" + server.address().getPort() + pathAndQuery);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        int status = connection.getResponseCode();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            return new Response(status, in == null ? "" : new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testEndpoints() throws IOException {
+        server = new QueryServer(graph, 0, 2, 8, 1000);
+        server.start();
+
+        Response bridge = get("/bridge?word1=explore&word2=new");
+        assertEquals(200, bridge.status);
+        assertEquals("The bridge words from \"explore\" to \"new\" are: strange.", bridge.body);
+
+        Response path = get("/path?word1=to&word2=life");
+        assertEquals(200, path.status);
+        assertTrue(path.body, path.body.contains("to -> seek -> out -> new -> life"));
+
+        Response paths = get("/paths?word=new&reachable=true");
+        assertEquals(200, paths.status);
+        assertTrue(paths.body.contains("new -> life"));
+
+        Response generated = get("/generate?text=" + "Explore%20new%20worlds");
+        assertEquals("explore strange new worlds", generated.body);
+
+        Response walk = get("/walk?start=civilizations");
+        assertEquals("civilizations", walk.body);
+
+        assertEquals(400, get("/bridge?word1=to").status);
+        assertEquals(400, get("/path?word1=to&word2=life&limit=x").status);
+        assertEquals(400, get("/path?word1=to&word2=life&limit=-1").status);
+        assertEquals(400, get("/paths?word=new&limit=-1").status);
+        assertEquals(404, get("/paths?word=unknown").status);
+        assertEquals(404, get("/bridges").status);
+        assertEquals("ok", get("/health").body);
+        assertTrue(get("/stats").body.contains("textgraph_server_requests_total"));
+    }
+
+    @Test
+    public void testPageRankUsesServedGraph() throws IOException {
+        // 全局图中同样有 new，但结构不同：服务应只使用自己的图
+        TextGraphApp.resetGraph();
+        TextGraphApp.graph.addEdge("new", "york");
+        TextGraphApp.graph.addEdge("old", "new");
+        server = new QueryServer(graph, 0, 2, 8, 1000);
+        server.start();
+
+        double expected = TextGraphApp.PAGE_RANK.compute(graph.freeze()).score("new");
+        assertEquals(String.format("PageRank(new) = %.8f", expected), get("/pagerank?word=new").body);
+        assertEquals(404, get("/pagerank?word=york").status);
+        assertEquals(String.format("PageRank(new) = %.8f", expected), get("/pagerank?word=new").body);
+    }
+
+    @Test
+    public void testInternalErrorsDoNotLeakDetails() throws IOException {
+        server = new QueryServer(graph, 0, 2, 8, 1000);
+        server.addEndpoint("/fail", null, (exchange, params, g) -> {
+            throw new IllegalStateException("secret detail");
+        });
+        // 算法内部的参数检查失败属于服务端错误，不能当作 400 回给客户端
+        server.addEndpoint("/internal", null, (exchange, params, g) -> {
+            throw new IllegalArgumentException("secret detail");
+        });
+        // 响应头已发出后才出错：不能再回复 500，只能结束响应
+        server.addEndpoint("/partial", null, (exchange, params, g) -> {
+            exchange.sendResponseHeaders(200, 0);
+            exchange.getResponseBody().write("part".getBytes(StandardCharsets.UTF_8));
+            throw new IllegalStateException("secret detail");
+        });
+        server.start();
+
+        Response failed = get("/fail");
+        assertEquals(500, failed.status);
+        assertEquals("内部错误", failed.body);
+        Response internal = get("/internal");
+        assertEquals(500, internal.status);
+        assertEquals("内部错误", internal.body);
+        assertEquals(400, get("/bridge?word1=%zz&word2=a").status);
+        Response partial = get("/partial");
+        assertEquals(200, partial.status);
+        assertEquals("part", partial.body);
+        assertEquals("ok", get("/health").body);
+    }
+
+    @Test
+    public void testRejectsWhenSaturated() throws Exception {
+        server = new QueryServer(graph, 0, 1, 1, 60_000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        server.addEndpoint("/slow", null, (exchange, params, g) -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "done".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        });
+        server.start();
+
+        ExecutorService clients = Executors.newFixedThreadPool(6);
+        try {
+            Future<Response> running = clients.submit(() -> get("/slow"));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            // 一个执行中，队列只能再容纳一个：其余请求都应立即得到 503
+            List<Future<Response>> others = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                others.add(clients.submit(() -> get("/health")));
+            }
+            int busy = 0;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (busy < 4 && System.nanoTime() < deadline) {
+                busy = 0;
+                for (Future<Response> f : others) {
+                    if (f.isDone() && f.get().status == 503) {
+                        busy++;
+                    }
+                }
+                Thread.sleep(10);
+            }
+            assertEquals(4, busy);
+            assertEquals(4, server.rejected());
+
+            release.countDown();
+            assertEquals("done", running.get(10, TimeUnit.SECONDS).body);
+            int ok = 0;
+            for (Future<Response> f : others) {
+                if (f.get(10, TimeUnit.SECONDS).status == 200) {
+                    ok++;
+                }
+            }
+            assertEquals(1, ok);
+            // 工作线程写完响应后才归还受理名额，稍等片刻后应恢复受理
+            int status = 503;
+            for (int i = 0; i < 100 && status == 503; i++) {
+                status = get("/health").status;
+                if (status == 503) {
+                    Thread.sleep(10);
+                }
+            }
+            assertEquals(200, status);
+        } finally {
+            release.countDown();
+            clients.shutdownNow();
+        }
+    }
+}
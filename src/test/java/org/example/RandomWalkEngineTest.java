@@ -0,0 +1,81 @@
+package org.example;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+public class RandomWalkEngineTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWeightedSamplingFollowsEdgeWeights() {
+        Graph graph = new Graph();
+        int a = graph.intern("a");
+        graph.addEdge(a, graph.intern("b"), 1);
+        graph.addEdge(a, graph.intern("c"), 3);
+        graph.addEdge(a, graph.intern("d"), 6);
+        CsrGraph g = graph.freeze();
+        RandomWalkEngine engine = new RandomWalkEngine(g, true);
+        SplittableRandom random = new SplittableRandom(1);
+        int[] hits = new int[g.nodeCount()];
+        int samples = 200_000;
+        for (int i = 0; i < samples; i++) {
+            hits[engine.next(g.id("a"), random)]++;
+        }
+        assertEquals(0.1, hits[g.id("b")] / (double) samples, 0.01);
+        assertEquals(0.3, hits[g.id("c")] / (double) samples, 0.01);
+        assertEquals(0.6, hits[g.id("d")] / (double) samples, 0.01);
+        assertEquals(-1, engine.next(g.id("b"), random));
+    }
+
+    @Test
+    public void testOutputIndependentOfThreadCount() throws IOException {
+        Graph graph = new Graph();
+        String[] words = "the quick fox jumps over the lazy dog and the fox runs to the dog".split(" ");
+        for (int i = 0; i + 1 < words.length; i++) {
+            graph.addEdge(words[i], words[i + 1]);
+        }
+        RandomWalkEngine engine = new RandomWalkEngine(graph.freeze(), true);
+        Path one = folder.newFile("one.txt").toPath();
+        Path four = folder.newFile("four.txt").toPath();
+        engine.run(one, 5000, 42, 1, Integer.MAX_VALUE, null);
+        engine.run(four, 5000, 42, 4, Integer.MAX_VALUE, null);
+        List<String> lines = Files.readAllLines(one);
+        assertEquals(5000, lines.size());
+        assertEquals(lines, Files.readAllLines(four));
+
+        // 每条游走都不重复经过同一条边
+        for (String line : lines) {
+            String[] walk = line.split(" ");
+            Set<String> edges = new HashSet<>();
+            for (int i = 0; i + 1 < walk.length; i++) {
+                assertTrue(edges.add(walk[i] + "->" + walk[i + 1]));
+                assertTrue(graph.getEdgeWeight(walk[i], walk[i + 1]) > 0);
+            }
+        }
+    }
+
+    @Test
+    public void testVisitedEdgesClearAndGrow() {
+        RandomWalkEngine.VisitedEdges visited = new RandomWalkEngine.VisitedEdges();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(visited.add(EdgeCounter.key(i, i + 1)));
+        }
+        assertFalse(visited.add(EdgeCounter.key(500, 501)));
+        visited.clear();
+        assertEquals(0, visited.size());
+        assertTrue(visited.add(EdgeCounter.key(500, 501)));
+    }
+}
@@ -0,0 +1,96 @@
+package org.example;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ReachabilityTest {
+
+    private static boolean[] bfs(CsrGraph g, int s) {
+        boolean[] seen = new boolean[g.nodeCount()];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        seen[s] = true;
+        queue.add(s);
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            for (int e = g.outStart(u); e < g.outEnd(u); e++) {
+                if (!seen[g.target(e)]) {
+                    seen[g.target(e)] = true;
+                    queue.add(g.target(e));
+                }
+            }
+        }
+        return seen;
+    }
+
+    @Test
+    public void testMatchesBreadthFirstSearch() {
+        Random random = new Random(11);
+        for (int round = 0; round < 20; round++) {
+            Graph graph = new Graph();
+            int n = 30 + random.nextInt(120);
+            for (int i = 0; i < n; i++) {
+                graph.intern("w" + i);
+            }
+            // 边数在节点数附近，既有大分量也有大量单节点分量
+            int edges = n / 2 + random.nextInt(2 * n);
+            for (int i = 0; i < edges; i++) {
+                graph.addEdge(random.nextInt(n), random.nextInt(n), 1);
+            }
+            CsrGraph g = graph.freeze();
+            Reachability index = new Reachability(g);
+            for (int u = 0; u < n; u++) {
+                boolean[] expected = bfs(g, u);
+                for (int v = 0; v < n; v++) {
+                    assertEquals(u + " -> " + v, expected[v], index.reachable(u, v));
+                    if (expected[v] && expected[u] && bfs(g, v)[u]) {
+                        assertEquals(index.component(u), index.component(v));
+                    }
+                    if (expected[v] && index.component(u) != index.component(v)) {
+                        assertFalse(index.excluded(index.component(u), index.component(v)));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDeepChainAndStatistics() {
+        // 20 万个节点的长链末尾接一个三元环：递归实现会栈溢出
+        Graph graph = new Graph();
+        int n = 200_000;
+        for (int i = 0; i < n; i++) {
+            graph.intern("w" + i);
+        }
+        for (int i = 0; i + 1 < n; i++) {
+            graph.addEdge(i, i + 1, 1);
+        }
+        graph.addEdge(n - 1, n - 3, 1);
+        CsrGraph g = graph.freeze();
+        Reachability index = new Reachability(g);
+
+        assertEquals(n - 2, index.componentCount());
+        assertEquals(3, index.largestComponent());
+        assertTrue(index.reachable(0, n - 1));
+        assertTrue(index.reachable(n - 1, n - 2));
+        assertFalse(index.reachable(n - 1, 0));
+        assertTrue(index.excluded(index.component(n - 1), index.component(0)));
+        assertTrue(index.toString().startsWith("强连通分量 " + (n - 2) + " 个，最大的含 3 个节点"));
+    }
+
+    @Test
+    public void testShortestPathRejectsUnreachablePair() {
+        TextGraphApp.resetGraph();
+        TextGraphApp.graph.addEdge("a", "b");
+        TextGraphApp.graph.addEdge("b", "c");
+        TextGraphApp.graph.addEdge("x", "a");
+
+        assertEquals("无法从 c 到达 a", TextGraphApp.calcShortestPath("c", "a"));
+        assertTrue(TextGraphApp.calcShortestPath("x", "c").contains("x -> a -> b -> c"));
+        TextGraphApp.graph.addEdge("c", "a");
+        assertTrue(TextGraphApp.calcShortestPath("c", "a").contains("c -> a"));
+    }
+}
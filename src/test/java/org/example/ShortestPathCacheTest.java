@@ -0,0 +1,108 @@
+package org.example;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class ShortestPathCacheTest {
+
+    @Test
+    public void testHitUntilGraphChanges() {
+        Graph graph = new Graph();
+        graph.addEdge("a", "b");
+        graph.addEdge("b", "c");
+        ShortestPathCache cache = new ShortestPathCache(1 << 20);
+
+        CsrGraph g = graph.freeze();
+        ShortestPaths.Tree first = cache.get(g, g.id("a"));
+        assertSame(first, cache.get(g, g.id("a")));
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(2, first.dist[g.id("c")]);
+
+        long version = graph.version();
+        graph.addEdge("a", "c");
+        assertTrue(graph.version() > version);
+        CsrGraph changed = graph.freeze();
+        ShortestPaths.Tree second = cache.get(changed, changed.id("a"));
+        assertNotSame(first, second);
+        assertEquals(1, second.dist[changed.id("c")]);
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    public void testDifferentGraphsAtSameVersionDoNotShareTrees() {
+        Graph first = new Graph();
+        first.addEdge("a", "b");
+        first.addEdge("b", "c");
+        Graph second = new Graph();
+        second.addEdge("a", "c");
+        second.addEdge("c", "b");
+        assertEquals(first.version(), second.version());
+        ShortestPathCache cache = new ShortestPathCache(1 << 20);
+
+        CsrGraph g1 = first.freeze();
+        CsrGraph g2 = second.freeze();
+        assertEquals(2, cache.get(g1, g1.id("a")).dist[g1.id("c")]);
+        ShortestPaths.Tree tree = cache.get(g2, g2.id("a"));
+        assertSame(g2, tree.graph);
+        assertEquals(1, tree.dist[g2.id("c")]);
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedWithinBudget() {
+        Graph graph = new Graph();
+        graph.addEdge("a", "b");
+        graph.addEdge("b", "a");
+        CsrGraph g = graph.freeze();
+        long treeBytes = ShortestPaths.bfs(g, 0).bytes();
+        ShortestPathCache cache = new ShortestPathCache(treeBytes);
+
+        cache.get(g, 0);
+        cache.get(g, 1);   // 预算只够一棵树，淘汰 a
+        cache.get(g, 1);
+        cache.get(g, 0);
+        assertEquals(1, cache.hits());
+        assertEquals(3, cache.misses());
+    }
+
+    @Test
+    public void testConcurrentMissesComputeOutsideTheLock() throws InterruptedException {
+        Graph graph = new Graph();
+        for (int i = 0; i < 2000; i++) {
+            graph.addEdge("w" + i, "w" + (i + 1) % 2000);
+        }
+        CsrGraph g = graph.freeze();
+        ShortestPathCache cache = new ShortestPathCache(1 << 30);
+        AtomicReference<String> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int offset = t;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 200; i++) {
+                    int source = (i * 7 + offset) % 20;
+                    ShortestPaths.Tree tree = cache.get(g, source);
+                    if (tree.graph != g || tree.source != source || tree.dist[(source + 5) % 2000] != 5) {
+                        failure.set("源点 " + source + " 的最短路径树不正确");
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+        assertEquals(8 * 200, cache.hits() + cache.misses());
+        // 每个源点缓存后都命中同一棵树
+        for (int source = 0; source < 20; source++) {
+            assertSame(cache.get(g, source), cache.get(g, source));
+        }
+    }
+}
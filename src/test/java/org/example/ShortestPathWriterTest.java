@@ -0,0 +1,68 @@
+package org.example;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ShortestPathWriterTest {
+
+    private static CsrGraph sample() {
+        Graph graph = new Graph();
+        String[] words = "the quick fox jumps over the lazy dog and the fox runs".split(" ");
+        for (int i = 0; i + 1 < words.length; i++) {
+            graph.addEdge(words[i], words[i + 1]);
+        }
+        graph.addEdge("cat", "sleeps");
+        return graph.freeze();
+    }
+
+    @Test
+    public void testSameLinesAsRebuildingEachPath() throws IOException {
+        CsrGraph g = sample();
+        ShortestPaths.Tree tree = ShortestPaths.bfs(g, g.id("the"));
+        StringBuilder out = new StringBuilder();
+        long lines = ShortestPathWriter.write(tree, out, false, Long.MAX_VALUE);
+        assertEquals(g.nodeCount() - 1, lines);
+
+        Set<String> expected = new HashSet<>();
+        for (int v = 0; v < g.nodeCount(); v++) {
+            if (v == tree.source) {
+                continue;
+            }
+            if (tree.reachable(v)) {
+                List<String> path = new ArrayList<>();
+                for (int c = v; c >= 0; c = tree.parent(c)) {
+                    path.add(g.word(c));
+                }
+                Collections.reverse(path);
+                expected.add("Shortest path from \"the\" to \"" + g.word(v) + "\": "
+                        + String.join(" -> ", path) + " (Distance: " + tree.dist[v] + ")");
+            } else {
+                expected.add("No path from \"the\" to \"" + g.word(v) + "\".");
+            }
+        }
+        assertEquals(expected, new HashSet<>(Arrays.asList(out.toString().split("\n"))));
+    }
+
+    @Test
+    public void testReachableOnlyAndLimit() throws IOException {
+        CsrGraph g = sample();
+        ShortestPaths.Tree tree = ShortestPaths.bfs(g, g.id("the"));
+        StringBuilder reachable = new StringBuilder();
+        ShortestPathWriter.write(tree, reachable, true, Long.MAX_VALUE);
+        assertFalse(reachable.toString().contains("No path"));
+        assertFalse(reachable.toString().contains("\"cat\""));
+
+        StringBuilder limited = new StringBuilder();
+        assertEquals(3, ShortestPathWriter.write(tree, limited, false, 3));
+        assertEquals(3, limited.toString().split("\n").length);
+    }
+}
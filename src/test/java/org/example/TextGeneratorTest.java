@@ -0,0 +1,86 @@
+package org.example;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+public class TextGeneratorTest {
+
+    // a -> {x, y, z} -> b 三个桥接词；seek -> out -> new
+    private static CsrGraph sample() {
+        Graph graph = new Graph();
+        for (String bridge : new String[]{"x", "y", "z"}) {
+            graph.addEdge("a", bridge);
+            graph.addEdge(bridge, "b");
+        }
+        graph.addEdge("seek", "out");
+        graph.addEdge("out", "new");
+        graph.addEdge("dont", "x");
+        return graph.freeze();
+    }
+
+    @Test
+    public void testCleansInputLikeIngest() {
+        TextGenerator generator = new TextGenerator(sample());
+        SplittableRandom random = new SplittableRandom(1);
+        assertEquals("seek out new", generator.generate("Seek, NEW!", random));
+        assertEquals("seek out new", generator.generate("   seek\tnew  ", random));
+        // 与建图一致：撇号被丢弃而不是把单词拆开
+        assertEquals("dont x", generator.generate("don't X", random));
+        assertEquals("", generator.generate("", random));
+        assertEquals("", generator.generate("  ... ", random));
+        assertEquals("unknown seek", generator.generate("unknown seek", random));
+        // 换行两侧不插入桥接词
+        assertEquals("seek new", generator.generate("seek\nnew", random));
+    }
+
+    @Test
+    public void testBridgeChosenUniformly() {
+        CsrGraph g = sample();
+        TextGenerator generator = new TextGenerator(g);
+        int[] counts = new int[3];
+        for (long seed = 0; seed < 3000; seed++) {
+            String text = generator.generate("a b", new SplittableRandom(seed));
+            counts[text.charAt(2) - 'x']++;
+            assertEquals(5, text.length());
+        }
+        for (int count : counts) {
+            assertEquals(1000, count, 100);
+        }
+    }
+
+    @Test
+    public void testBatchOutputIndependentOfThreadCount() throws IOException {
+        Path input = Files.createTempFile("sentences", ".txt");
+        Path one = Files.createTempFile("generated", ".txt");
+        Path four = Files.createTempFile("generated", ".txt");
+        try {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 20000; i++) {
+                text.append(i % 97 == 0 ? "" : "A b, seek new; a B").append('\n');
+            }
+            Files.write(input, text.toString().getBytes(StandardCharsets.UTF_8));
+
+            CsrGraph g = sample();
+            assertEquals(20000, TextGenerator.run(g, input, one, 42, 1, null));
+            assertEquals(20000, TextGenerator.run(g, input, four, 42, 4, null));
+            List<String> lines = Files.readAllLines(one);
+            assertEquals(lines, Files.readAllLines(four));
+            assertEquals("", lines.get(0));
+            assertTrue(lines.get(1).matches("a [xyz] b seek out new a [xyz] b"));
+            assertEquals(3, lines.stream().map(l -> l.isEmpty() ? "" : l.substring(2, 3)).distinct()
+                    .filter(s -> !s.isEmpty()).count());
+        } finally {
+            Files.delete(input);
+            Files.delete(one);
+            Files.delete(four);
+        }
+    }
+}